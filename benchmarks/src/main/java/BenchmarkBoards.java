@@ -0,0 +1,107 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * @author Joshua Boone
+ *
+ * Seeded boards shared by the benchmarks, so results are comparable between runs.
+ *
+ */
+final class BenchmarkBoards
+{
+	private BenchmarkBoards()
+	{
+	}
+
+	/**
+	 * Returns a complete, valid grid: the first exact cover solution of the empty board
+	 * with its values relabeled by a seeded permutation.
+	 *
+	 * @param dim  dimension of the grid
+	 * @param seed seed for the relabeling
+	 * @return cell values indexed by row * dimension + col
+	 */
+	static int[] solvedGrid(int dim, long seed)
+	{
+		int[] empty = new int[dim*dim];
+		Arrays.fill(empty, -1);
+		int[] grid = new DancingLinks(dim).solve(empty);
+
+		Random	rand	= new Random(seed);
+		int[]	label	= new int[dim + 1];
+		for(int value = 1; value <= dim; value++)
+		{
+			label[value] = value;
+		}
+		for(int i = dim; i > 1; i--)
+		{
+			int j		= 1 + rand.nextInt(i);
+			int swap	= label[i];
+			label[i]	= label[j];
+			label[j]	= swap;
+		}
+
+		for(int cell = 0; cell < grid.length; cell++)
+		{
+			grid[cell] = label[grid[cell]];
+		}
+		return grid;
+	}
+
+	/**
+	 * Keeps a seeded random fraction of a grid's cells as givens.
+	 *
+	 * @param grid    complete grid
+	 * @param density fraction of cells to keep
+	 * @param seed    seed for choosing the cells
+	 * @return cell values indexed by row * dimension + col, -1 for empty cells
+	 */
+	static int[] givens(int[] grid, double density, long seed)
+	{
+		Random	rand	= new Random(seed);
+		int[]	board	= grid.clone();
+		for(int cell = 0; cell < board.length; cell++)
+		{
+			if(rand.nextDouble() >= density)
+				board[cell] = -1;
+		}
+		return board;
+	}
+
+	/**
+	 * Builds a playable puzzle from a seeded grid. Givens are not guaranteed to be unique,
+	 * which does not matter for gameplay and rendering benchmarks.
+	 *
+	 * @param dim     dimension of the puzzle
+	 * @param density fraction of cells given
+	 * @param seed    seed for the grid and the givens
+	 */
+	static Puzzle puzzle(int dim, double density, long seed)
+	{
+		int[]	grid		= solvedGrid(dim, seed);
+		int[]	values		= givens(grid, density, seed);
+		Board	board		= new Board(dim);
+		int[]	elemOrder	= new int[grid.length];
+		int		numOfElems	= 0;
+
+		for(int cell = 0; cell < grid.length; cell++)
+		{
+			board.setValue(cell, values[cell]);
+			board.setSolution(cell, grid[cell]);
+			if(values[cell] != -1)
+				elemOrder[numOfElems++] = cell;
+		}
+
+		return new Puzzle(board, Arrays.copyOf(elemOrder, numOfElems));
+	}
+
+	/**
+	 * Returns a copy of a puzzle that can be played without touching the original.
+	 *
+	 * @param puzzle the puzzle to copy
+	 */
+	static Puzzle copy(Puzzle puzzle)
+	{
+		return new Puzzle(new Board(puzzle.getBoard()), puzzle.getElemOrder());
+	}
+}
@@ -0,0 +1,168 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Joshua Boone
+ *
+ *
+ * Benchmarks what happens on every player turn: drawing the board, checking an input
+ * and filling a hint, on a seeded puzzle.
+ *
+ * Moves change the board, so once every empty cell is filled the game is replaced by a
+ * fresh copy of the same puzzle. That cost is included, spread over all the moves of a game.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameplayBenchmark
+{
+	private static final long	SEED	= 20240131L;
+	private static final double	DENSITY	= 0.4;
+
+	@Param({"4", "9", "16", "25"})
+	public int					dimension;
+
+	private Puzzle				puzzle;
+	private View				view;
+	private View				diffView;
+	private int					selected;
+	private PrintStream			stdout;
+
+	private GameState			renderGame;
+	private GameState			inputGame;
+	private GameState			hintGame;
+	private int[]				moves;
+	private int					nextMove;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		puzzle		= BenchmarkBoards.puzzle(dimension, DENSITY, SEED);
+		view		= new View();
+		diffView	= new View(true);
+
+		// View prints straight to System.out, so send it nowhere
+		stdout	= System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+		// Inputs go to the empty cells in a seeded order
+		int empty = 0;
+		for(int row = 0; row < dimension; row++)
+		{
+			for(int col = 0; col < dimension; col++)
+			{
+				if(puzzle.getBoard().isEmpty(row, col))
+					empty++;
+			}
+		}
+		moves = new int[empty];
+		empty = 0;
+		for(int row = 0; row < dimension; row++)
+		{
+			for(int col = 0; col < dimension; col++)
+			{
+				if(puzzle.getBoard().isEmpty(row, col))
+					moves[empty++] = row*dimension + col;
+			}
+		}
+		Random rand = new Random(SEED);
+		for(int i = moves.length - 1; i > 0; i--)
+		{
+			int j		= rand.nextInt(i + 1);
+			int swap	= moves[i];
+			moves[i]	= moves[j];
+			moves[j]	= swap;
+		}
+
+		renderGame	= newGame();
+		inputGame	= newGame();
+		hintGame	= newGame();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		System.setOut(stdout);
+	}
+
+	@Benchmark
+	public void printGameScreen()
+	{
+		view.printGameScreen(renderGame);
+	}
+
+	/**
+	 * Title, status and board written as one frame.
+	 */
+	@Benchmark
+	public void printFrame()
+	{
+		view.printFrame(renderGame, 1);
+	}
+
+	/**
+	 * A diff mode frame where only the selected value changes, which redraws the status
+	 * field and the cells holding the old and new selection.
+	 */
+	@Benchmark
+	public void printFrameDiff()
+	{
+		selected = selected % dimension + 1;
+		diffView.printFrame(renderGame, selected);
+	}
+
+	/**
+	 * A correct input on the next empty cell.
+	 */
+	@Benchmark
+	public boolean checkInput()
+	{
+		if(nextMove == moves.length)
+		{
+			inputGame	= newGame();
+			nextMove	= 0;
+		}
+
+		int cell	= moves[nextMove++];
+		int row		= cell/dimension;
+		int col		= cell%dimension;
+		return inputGame.checkInput(row, col, puzzle.getBoard().getSolution(row, col));
+	}
+
+	/**
+	 * A hint, starting over once the board is full.
+	 */
+	@Benchmark
+	public boolean useHint()
+	{
+		if(hintGame.isSolved())
+			hintGame = newGame();
+
+		return hintGame.useHint();
+	}
+
+	private GameState newGame()
+	{
+		return new GameState(BenchmarkBoards.copy(puzzle), 1000, 1000);
+	}
+}
@@ -0,0 +1,97 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Joshua Boone
+ *
+ *
+ * Benchmarks generating a whole puzzle on a single search, with each generation strategy.
+ *
+ * Every invocation uses the next seed of a fixed sequence, so each run generates the
+ * same puzzles. Generation time is heavy tailed, so a watchdog cancels any search that
+ * runs over the budget; cancelled searches are still measured and report false.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.SingleShotTime, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = 1)
+@Measurement(iterations = 20, batchSize = 1)
+@Fork(1)
+public class GenerationBenchmark
+{
+	private static final long			FIRST_SEED	= 20240131L;
+
+	@Param({"4", "9", "16", "25"})
+	public int							dimension;
+
+	@Param({"ADD_GIVENS", "DIG_HOLES"})
+	public GenerationStrategy			strategy;
+
+	@Param({"60"})
+	public int							budgetSeconds;
+
+	private UniquenessCheck				check;
+	private long						seed;
+	private ScheduledExecutorService	watchdog;
+
+	private PuzzleGenerator				generator;
+	private AtomicBoolean				cancelled;
+	private ScheduledFuture<?>			deadline;
+
+	@Setup(Level.Trial)
+	public void setUpTrial()
+	{
+		check		= PuzzleGenerator.defaultCheck(dimension);
+		seed		= FIRST_SEED;
+		watchdog	= Executors.newSingleThreadScheduledExecutor(task ->
+		{
+			Thread thread = new Thread(task, "benchmark-watchdog");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Setup(Level.Invocation)
+	public void setUpInvocation()
+	{
+		cancelled	= new AtomicBoolean();
+		generator	= new PuzzleGenerator(dimension, check, strategy, seed++, cancelled);
+		deadline	= watchdog.schedule(() -> cancelled.set(true), budgetSeconds, TimeUnit.SECONDS);
+	}
+
+	@TearDown(Level.Invocation)
+	public void tearDownInvocation()
+	{
+		deadline.cancel(false);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownTrial()
+	{
+		watchdog.shutdownNow();
+	}
+
+	@Benchmark
+	public boolean generatePuzzle()
+	{
+		return generator.generate();
+	}
+}
@@ -0,0 +1,117 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Joshua Boone
+ *
+ *
+ * Benchmarks the checks the generator runs for every placed value, on a seeded
+ * board that is about half filled, as it would be partway through generation.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark
+{
+	private static final long	SEED	= 20240131L;
+	private static final double	DENSITY	= 0.55;
+
+	@Param({"4", "9", "16", "25"})
+	public int					dimension;
+
+	private PuzzleGenerator		generator;
+	private ConstraintStore		store;
+	private int[]				emptyCells;
+	private int[]				candidates;
+	private int					next;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		int[] grid	= BenchmarkBoards.solvedGrid(dimension, SEED);
+		int[] board	= BenchmarkBoards.givens(grid, DENSITY, SEED);
+
+		generator = new PuzzleGenerator(dimension, PuzzleGenerator.defaultCheck(dimension), SEED, new AtomicBoolean());
+		generator.loadGivens(board);
+
+		store = new ConstraintStore(dimension);
+		for(int cell = 0; cell < board.length; cell++)
+		{
+			if(board[cell] != -1)
+				store.assign(cell, board[cell]);
+		}
+
+		// The empty cells, each with the value the solved grid puts there
+		int empty = 0;
+		for(int cell = 0; cell < board.length; cell++)
+		{
+			if(board[cell] == -1)
+				empty++;
+		}
+		emptyCells	= new int[empty];
+		candidates	= new int[empty];
+		empty		= 0;
+		for(int cell = 0; cell < board.length; cell++)
+		{
+			if(board[cell] == -1)
+			{
+				emptyCells[empty]	= cell;
+				candidates[empty]	= grid[cell];
+				empty++;
+			}
+		}
+	}
+
+	/**
+	 * Domain of the next empty cell, cycling through all of them.
+	 */
+	@Benchmark
+	public CandidateSet getUsableDomain()
+	{
+		int cell = emptyCells[next];
+		next = next + 1 == emptyCells.length ? 0 : next + 1;
+		return generator.getUsableDomain(cell/dimension, cell%dimension);
+	}
+
+	/**
+	 * The full uniqueness check, including the search for a second solution.
+	 */
+	@Benchmark
+	public int checkUniqueness()
+	{
+		return generator.checkUniqueness();
+	}
+
+	/**
+	 * Placing a value and taking it back, which is what every generator step costs
+	 * in the constraint store. The status assign returns is the propagation result
+	 * that isSolvable reads, so this also covers the solvability check.
+	 */
+	@Benchmark
+	public int assignAndUndo()
+	{
+		int index = next;
+		next = next + 1 == emptyCells.length ? 0 : next + 1;
+
+		int status = store.assign(emptyCells[index], candidates[index]);
+		store.undo();
+		return status;
+	}
+}
@@ -0,0 +1,85 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Joshua Boone
+ *
+ *
+ * Benchmarks the public solver on a seeded board, on one worker and on every core, next
+ * to a single SolutionCounter search of the same board.
+ *
+ * A density of 0.5 leaves 25x25 boards with enough freedom that splitting the search
+ * pays off; denser boards are solved without leaving the calling thread.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark
+{
+	private static final long	SEED	= 20240131L;
+
+	@Param({"9", "16", "25"})
+	public int					dimension;
+
+	@Param({"0.5", "0.6"})
+	public double				density;
+
+	@Param({"1", "0"})
+	public int					workers;
+
+	private int[]				board;
+	private ForkJoinPool		pool;
+	private Solver				solver;
+	private SolutionCounter		counter;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		board	= BenchmarkBoards.givens(BenchmarkBoards.solvedGrid(dimension, SEED), density, SEED);
+		pool	= new ForkJoinPool(workers > 0 ? workers : Runtime.getRuntime().availableProcessors());
+		solver	= new Solver(pool);
+		counter	= new SolutionCounter(dimension);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		pool.shutdown();
+	}
+
+	/**
+	 * Solution and uniqueness verdict, split across the pool.
+	 */
+	@Benchmark
+	public SolveResult solve()
+	{
+		return solver.solve(board, dimension);
+	}
+
+	/**
+	 * The same question answered by one sequential search.
+	 */
+	@Benchmark
+	public int countSequential()
+	{
+		return counter.countSolutions(board, 2);
+	}
+}
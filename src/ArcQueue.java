@@ -0,0 +1,108 @@
+/**
+ * @author Joshua Boone
+ *
+ * First in, first out work queue of cell indices (row * dimension + col) used
+ * by the arc consistency check.
+ * Backed by a ring buffer and an in-queue bit per cell, so adding, removing and
+ * membership checks are constant time and never allocate.
+ *
+ */
+public class ArcQueue
+{
+	private int[]	cells;
+	private long[]	queued;
+	private int		head;
+	private int		size;
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity number of cells that can be queued at once
+	 */
+	public ArcQueue(int capacity)
+	{
+		cells	= new int[capacity];
+		queued	= new long[(capacity + 63) >>> 6];
+		head	= 0;
+		size	= 0;
+	}
+
+	/**
+	 * Adds a cell to the back of the queue unless it is already queued.
+	 *
+	 * @param cell index of the cell
+	 * @return true if the cell was added
+	 */
+	public boolean add(int cell)
+	{
+		if(contains(cell))
+			return false;
+
+		int tail = head + size;
+		if(tail >= cells.length)
+			tail -= cells.length;
+
+		cells[tail] = cell;
+		queued[cell >>> 6] |= 1L << cell;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Removes the cell at the front of the queue.
+	 *
+	 * @return index of the removed cell
+	 */
+	public int remove()
+	{
+		if(size == 0)
+			throw new IllegalStateException("Arc queue is empty.");
+
+		int cell = cells[head];
+		queued[cell >>> 6] &= ~(1L << cell);
+
+		head++;
+		if(head == cells.length)
+			head = 0;
+		size--;
+
+		return cell;
+	}
+
+	/**
+	 * @param cell index of the cell
+	 * @return true if the cell is waiting in the queue
+	 */
+	public boolean contains(int cell)
+	{
+		return (queued[cell >>> 6] & (1L << cell)) != 0;
+	}
+
+	/**
+	 * Empties the queue without releasing its storage.
+	 */
+	public void clear()
+	{
+		while(size > 0)
+		{
+			remove();
+		}
+		head = 0;
+	}
+
+	/**
+	 * @return true if no cells are queued
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * @return the number of queued cells
+	 */
+	public int size()
+	{
+		return size;
+	}
+}
@@ -0,0 +1,351 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author Joshua Boone
+ *
+ *
+ * Generates puzzles without the interactive game loop and streams them to a file.
+ *
+ * Puzzles are generated on every core with a bounded number in flight, and each one is
+ * written as soon as it completes, one line per puzzle:
+ *
+ *     dimension|givens|solution
+ *
+ * where givens and solution are comma separated values in row-major order and 0 marks
+ * an empty cell. An output file ending in .spl is a PuzzleLibrary instead, and the
+ * puzzles are appended to it. Throughput and per-puzzle latency are printed at the end.
+ *
+ * Puzzles that are the same up to the sudoku symmetries are written once: each worker
+ * computes the canonical form of its puzzle, the writer keeps their fingerprints, and a
+ * repeat is dropped and generated again. The number of repeats is printed as well. Small
+ * dimensions have few distinct puzzles, so once DUPLICATES_PER_PUZZLE times count repeats
+ * have been dropped the batch stops with the distinct puzzles written so far.
+ *
+ * A puzzle whose generation fails, for example one too symmetric for CanonicalForm, is
+ * dropped and generated again in the same way, within the same budget. Whatever was
+ * written before the batch stops, for any reason, is flushed to the file.
+ *
+ */
+public class BatchGenerator
+{
+	private static final int	BUFFER_SIZE = 1 << 16;
+
+	// Repeats allowed per requested puzzle before the batch gives up
+	private static final int	DUPLICATES_PER_PUZZLE = 10;
+
+	public static final String	LIBRARY_EXTENSION = ".spl";
+
+	private int					count;
+	private int					dimension;
+	private Path				output;
+	private int					threads;
+
+	private long[]				latencies;
+	private FingerprintSet		fingerprints;
+	private int					duplicates;
+	private int					failures;
+	private Throwable			lastFailure;
+
+	// Stops the generations still in flight once the batch is done
+	private AtomicBoolean		stop;
+
+	/**
+	 * Constructor
+	 *
+	 * @param count   number of puzzles to generate, at least 1
+	 * @param dim     dimension of the puzzles
+	 * @param output  file to write the puzzles to
+	 * @param threads number of generator threads
+	 * @throws IllegalArgumentException if count is less than 1
+	 */
+	public BatchGenerator(int count, int dim, Path output, int threads)
+	{
+		if(count < 1)
+			throw new IllegalArgumentException("Count must be at least 1: " + count);
+
+		this.count		= count;
+		this.dimension	= GameState.checkDimension(dim);
+		this.output		= output;
+		this.threads	= Math.max(1, threads);
+
+		latencies		= new long[count];
+		fingerprints	= new FingerprintSet(count);
+		stop			= new AtomicBoolean();
+	}
+
+	/**
+	 * Usage: BatchGenerator count dimension file [threads]
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		if(args.length < 3 || Integer.parseInt(args[0]) < 1)
+		{
+			System.out.println("Usage: BatchGenerator count dimension file [threads], with a count of at least 1");
+			System.exit(1);
+		}
+
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+		BatchGenerator batch = new BatchGenerator(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Paths.get(args[2]), threads);
+		if(batch.run() < batch.count)
+			System.exit(1);
+	}
+
+	/**
+	 * Generates every puzzle, writing each one as it completes, and prints the statistics.
+	 * Stops early if too many repeats are dropped, which happens when the dimension has
+	 * fewer distinct puzzles than were asked for.
+	 *
+	 * @return the number of puzzles written, less than count if the batch stopped early
+	 */
+	public int run() throws IOException, InterruptedException
+	{
+		ExecutorService						pool		= Executors.newFixedThreadPool(threads);
+		ExecutorCompletionService<Result>	completed	= new ExecutorCompletionService<Result>(pool);
+		ByteBuffer							buffer		= ByteBuffer.allocate(BUFFER_SIZE);
+
+		long start		= System.nanoTime();
+		int written		= 0;
+		boolean library	= output.getFileName().toString().endsWith(LIBRARY_EXTENSION);
+
+		try(FileChannel channel = library ? null : FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			PuzzleLibraryWriter writer = library ? new PuzzleLibraryWriter(output, dimension) : null)
+		{
+			try
+			{
+				written = writeAll(completed, channel, writer, buffer);
+			}
+			finally
+			{
+				// Keep what was written even if the batch stops with an exception
+				if(!library)
+					flush(channel, buffer);
+			}
+		}
+		finally
+		{
+			// The generators do not check for interrupts, so stop them through their flag
+			stop.set(true);
+			pool.shutdownNow();
+		}
+
+		printStatistics(written, System.nanoTime() - start);
+		if(failures > 0)
+			System.out.printf("Dropped %d puzzles whose generation failed, the last with: %s%n", failures, lastFailure);
+		if(written < count)
+			System.out.printf("Stopped after %d duplicates and %d failures: only %d of %d puzzles were written%n",
+							  duplicates, failures, written, count);
+		return written;
+	}
+
+	/**
+	 * Takes puzzles as they complete and writes the distinct ones, submitting more work
+	 * until count have been written or the budget of repeats and failures runs out.
+	 *
+	 * @return the number of puzzles written
+	 */
+	private int writeAll(ExecutorCompletionService<Result> completed, FileChannel channel, PuzzleLibraryWriter writer,
+						 ByteBuffer buffer) throws IOException, InterruptedException
+	{
+		StringBuilder	line		= new StringBuilder();
+		int				submitted	= 0;
+		int				written		= 0;
+		long			budget		= (long) DUPLICATES_PER_PUZZLE * count;
+
+		// Keep a bounded amount of work in flight
+		while(submitted < count && submitted < 2*threads)
+		{
+			completed.submit(this::generateOne);
+			submitted++;
+		}
+
+		while(written < count)
+		{
+			Result result;
+			try
+			{
+				result = completed.take().get();
+			}
+			catch(ExecutionException e)
+			{
+				// Drop the failed puzzle and generate another in its place
+				failures++;
+				lastFailure = e.getCause();
+				if(duplicates + failures > budget)
+					break;
+				completed.submit(this::generateOne);
+				continue;
+			}
+
+			if(!fingerprints.add(result.high, result.low))
+			{
+				// Same puzzle as one already written; generate another in its place
+				duplicates++;
+				if(duplicates + failures > budget)
+					break;
+				completed.submit(this::generateOne);
+				continue;
+			}
+
+			if(submitted < count)
+			{
+				completed.submit(this::generateOne);
+				submitted++;
+			}
+
+			latencies[written++] = result.nanos;
+
+			if(writer != null)
+			{
+				writer.append(result.puzzle);
+				continue;
+			}
+
+			line.setLength(0);
+			appendPuzzle(line, result.puzzle);
+			byte[] bytes = line.toString().getBytes(StandardCharsets.US_ASCII);
+
+			if(buffer.remaining() < bytes.length)
+				flush(channel, buffer);
+			if(bytes.length > buffer.capacity())
+				channel.write(ByteBuffer.wrap(bytes));
+			else
+				buffer.put(bytes);
+		}
+		return written;
+	}
+
+	/**
+	 * Generates one puzzle on a single search, retrying after dead ends.
+	 *
+	 * @return the puzzle, or null if the batch stopped first
+	 */
+	private Result generateOne()
+	{
+		long	start	= System.nanoTime();
+		Puzzle	puzzle	= null;
+
+		while(puzzle == null)
+		{
+			if(stop.get())
+				return null;
+			puzzle = PuzzleGenerator.generate(dimension, PuzzleGenerator.defaultCheck(dimension), GenerationStrategy.ADD_GIVENS, 1, null, stop);
+		}
+
+		CanonicalForm form = CanonicalForm.of(puzzle.getBoard());
+
+		return new Result(puzzle, form.getHigh(), form.getLow(), System.nanoTime() - start);
+	}
+
+	/**
+	 * Appends one output line for a puzzle.
+	 */
+	private void appendPuzzle(StringBuilder line, Puzzle puzzle)
+	{
+		line.append(puzzle.getDimension()).append('|');
+		for(int row = 0; row < dimension; row++)
+		{
+			for(int col = 0; col < dimension; col++)
+			{
+				if(row + col > 0)
+					line.append(',');
+				int elem = puzzle.getBoard().getValue(row, col);
+				line.append(elem == -1 ? 0 : elem);
+			}
+		}
+		line.append('|');
+		for(int row = 0; row < dimension; row++)
+		{
+			for(int col = 0; col < dimension; col++)
+			{
+				if(row + col > 0)
+					line.append(',');
+				line.append(puzzle.getBoard().getSolution(row, col));
+			}
+		}
+		line.append('\n');
+	}
+
+	/**
+	 * Writes out everything in the buffer.
+	 */
+	private void flush(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		buffer.flip();
+		while(buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Prints throughput and latency percentiles of the puzzles written.
+	 */
+	private void printStatistics(int written, long elapsed)
+	{
+		long[] sorted = Arrays.copyOf(latencies, written);
+		Arrays.sort(sorted);
+
+		double seconds = elapsed / 1e9;
+		System.out.printf("Generated %d puzzles of dimension %d in %.3f s (%.2f puzzles/sec) on %d threads%n",
+						  written, dimension, seconds, written / seconds, threads);
+		System.out.printf("Rejected %d duplicate puzzles%n", duplicates);
+		if(written == 0)
+			return;
+
+		long total = 0;
+		for(long nanos : sorted)
+		{
+			total += nanos;
+		}
+		System.out.printf("Latency ms: mean %.3f  p50 %.3f  p90 %.3f  p99 %.3f  max %.3f%n",
+						  total / 1e6 / written,
+						  percentile(sorted, 0.50) / 1e6,
+						  percentile(sorted, 0.90) / 1e6,
+						  percentile(sorted, 0.99) / 1e6,
+						  sorted[written - 1] / 1e6);
+	}
+
+	/**
+	 * Returns the nearest-rank percentile of sorted values.
+	 */
+	static long percentile(long[] sorted, double fraction)
+	{
+		int rank = (int) Math.ceil(fraction * sorted.length);
+		return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+	}
+
+	/**
+	 * A generated puzzle, its canonical-form fingerprint and how long it took.
+	 */
+	private static class Result
+	{
+		private Puzzle	puzzle;
+		private long	high;
+		private long	low;
+		private long	nanos;
+
+		private Result(Puzzle puzzle, long high, long low, long nanos)
+		{
+			this.puzzle	= puzzle;
+			this.high	= high;
+			this.low	= low;
+			this.nanos	= nanos;
+		}
+	}
+}
@@ -0,0 +1,167 @@
+import java.util.Arrays;
+
+/**
+ * @author Joshua Boone
+ *
+ * Compact sudoku board.
+ * Cell values and the answer key are stored in flat byte arrays indexed by
+ * row * dimension + col, one byte per cell instead of one object per cell.
+ * Empty cells hold -1.
+ *
+ */
+public class Board
+{
+	public static final int		EMPTY = -1;
+
+	private byte[]				values;
+	private byte[]				solution;
+
+	private int					dimension;
+	private int					sqrt;
+
+	/**
+	 * Constructor
+	 * Creates an empty board with no answer key yet.
+	 *
+	 * @param dim dimension of the board, must be a perfect square of at most 64
+	 */
+	public Board(int dim)
+	{
+		dimension	= dim;
+		sqrt		= (int) Math.sqrt(dim);
+		values		= new byte[dim*dim];
+		solution	= new byte[dim*dim];
+
+		Arrays.fill(values, (byte) EMPTY);
+	}
+
+	/**
+	 * Constructor
+	 * Copies the cell values of another board. The answer key never changes once
+	 * generated, so it is shared rather than copied.
+	 *
+	 * @param other the board to copy
+	 */
+	public Board(Board other)
+	{
+		dimension	= other.dimension;
+		sqrt		= other.sqrt;
+		values		= other.values.clone();
+		solution	= other.solution;
+	}
+
+	/**
+	 * @param row board row
+	 * @param col board column
+	 * @return the value of the cell, or -1 if it is empty
+	 */
+	public int getValue(int row, int col)
+	{
+		return values[row*dimension + col];
+	}
+
+	/**
+	 * @param cell index of the cell (row * dimension + col)
+	 * @return the value of the cell, or -1 if it is empty
+	 */
+	public int getValue(int cell)
+	{
+		return values[cell];
+	}
+
+	/**
+	 * @param row   board row
+	 * @param col   board column
+	 * @param value value to set, or -1 to empty the cell
+	 */
+	public void setValue(int row, int col, int value)
+	{
+		values[row*dimension + col] = (byte) value;
+	}
+
+	/**
+	 * @param cell  index of the cell (row * dimension + col)
+	 * @param value value to set, or -1 to empty the cell
+	 */
+	public void setValue(int cell, int value)
+	{
+		values[cell] = (byte) value;
+	}
+
+	/**
+	 * @param row board row
+	 * @param col board column
+	 * @return true if the cell has no value
+	 */
+	public boolean isEmpty(int row, int col)
+	{
+		return values[row*dimension + col] == EMPTY;
+	}
+
+	/**
+	 * @param row board row
+	 * @param col board column
+	 * @return the answer key value of the cell
+	 */
+	public int getSolution(int row, int col)
+	{
+		return solution[row*dimension + col];
+	}
+
+	/**
+	 * @param cell index of the cell (row * dimension + col)
+	 * @return the answer key value of the cell
+	 */
+	public int getSolution(int cell)
+	{
+		return solution[cell];
+	}
+
+	/**
+	 * @param cell  index of the cell (row * dimension + col)
+	 * @param value answer key value of the cell
+	 */
+	public void setSolution(int cell, int value)
+	{
+		solution[cell] = (byte) value;
+	}
+
+	/**
+	 * Copies the cell values into an int array, as the solvers take them.
+	 *
+	 * @param target array of at least dimension * dimension cells
+	 * @return the target
+	 */
+	public int[] copyValues(int[] target)
+	{
+		for(int cell = 0; cell < values.length; cell++)
+		{
+			target[cell] = values[cell];
+		}
+		return target;
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the dimension
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return the sqrt
+	 */
+	public int getSqrt() {
+		return sqrt;
+	}
+
+	/**
+	 * @return the number of cells
+	 */
+	public int getSize() {
+		return values.length;
+	}
+}
@@ -0,0 +1,56 @@
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author Joshua Boone
+ *
+ * Lets a caller stop work it started, such as puzzle generation, from another thread.
+ * Cancelling runs every registered callback once; callbacks registered after
+ * cancellation run right away.
+ *
+ */
+public class CancellationToken
+{
+	private AtomicBoolean					cancelled;
+	private CopyOnWriteArrayList<Runnable>	callbacks;
+
+	public CancellationToken()
+	{
+		cancelled	= new AtomicBoolean(false);
+		callbacks	= new CopyOnWriteArrayList<Runnable>();
+	}
+
+	/**
+	 * Cancels the token and runs the callbacks. Has no effect if already cancelled.
+	 */
+	public void cancel()
+	{
+		if(!cancelled.compareAndSet(false, true))
+			return;
+
+		for(Runnable callback : callbacks)
+		{
+			callback.run();
+		}
+	}
+
+	/**
+	 * Registers a callback to run when the token is cancelled.
+	 *
+	 * @param callback what to run, must be safe to run more than once
+	 */
+	public void onCancel(Runnable callback)
+	{
+		callbacks.add(callback);
+		if(cancelled.get())
+			callback.run();
+	}
+
+	/**
+	 * @return true once the token has been cancelled
+	 */
+	public boolean isCancelled()
+	{
+		return cancelled.get();
+	}
+}
@@ -0,0 +1,158 @@
+/**
+ * @author Joshua Boone
+ *
+ * Primitive set of candidate values for a single cell.
+ * Value v is stored in bit (v-1) of a single long, so domains of up to 64 values
+ * can be copied, counted and searched without boxing.
+ *
+ */
+public class CandidateSet
+{
+	public static final int		MAX_VALUE = 64;
+
+	private long				bits;
+
+	public CandidateSet()
+	{
+		bits = 0L;
+	}
+
+	public CandidateSet(long bits)
+	{
+		this.bits = bits;
+	}
+
+	/**
+	 * Returns the mask holding every value from 1 to dimension.
+	 *
+	 * @param dimension highest value of the domain
+	 */
+	public static long fullMask(int dimension)
+	{
+		return dimension >= MAX_VALUE ? -1L : (1L << dimension) - 1;
+	}
+
+	/**
+	 * Returns the mask holding only the given value.
+	 *
+	 * @param value value to convert
+	 */
+	public static long maskOf(int value)
+	{
+		return 1L << (value - 1);
+	}
+
+	/**
+	 * Adds a value to the set.
+	 *
+	 * @param value value to add
+	 */
+	public void add(int value)
+	{
+		bits |= maskOf(value);
+	}
+
+	/**
+	 * Removes a value from the set.
+	 *
+	 * @param value value to remove
+	 * @return true if the value was in the set
+	 */
+	public boolean remove(int value)
+	{
+		if(value < 1 || value > MAX_VALUE)
+			return false;
+
+		long mask = maskOf(value);
+		if((bits & mask) == 0)
+			return false;
+
+		bits &= ~mask;
+		return true;
+	}
+
+	/**
+	 * Removes the value at the given position, counting from the lowest value.
+	 *
+	 * @param index position of the value to remove
+	 * @return the removed value
+	 */
+	public int removeAt(int index)
+	{
+		int value = get(index);
+		bits &= ~maskOf(value);
+		return value;
+	}
+
+	/**
+	 * Returns the value at the given position, counting from the lowest value.
+	 *
+	 * @param index position of the value
+	 */
+	public int get(int index)
+	{
+		long remaining = bits;
+		for(int i = 0; i < index; i++)
+		{
+			remaining &= remaining - 1;
+		}
+
+		if(remaining == 0)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+
+		return Long.numberOfTrailingZeros(remaining) + 1;
+	}
+
+	/**
+	 * @return the lowest value in the set
+	 */
+	public int first()
+	{
+		if(bits == 0)
+			throw new IndexOutOfBoundsException("Index: 0, Size: 0");
+
+		return Long.numberOfTrailingZeros(bits) + 1;
+	}
+
+	/**
+	 * @param value value to look for
+	 * @return true if the value is in the set
+	 */
+	public boolean contains(int value)
+	{
+		return value >= 1 && value <= MAX_VALUE && (bits & maskOf(value)) != 0;
+	}
+
+	/**
+	 * @return the number of values in the set
+	 */
+	public int size()
+	{
+		return Long.bitCount(bits);
+	}
+
+	/**
+	 * @return true if the set has no values
+	 */
+	public boolean isEmpty()
+	{
+		return bits == 0;
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the bits
+	 */
+	public long getBits() {
+		return bits;
+	}
+
+	/**
+	 * @param bits the bits to set
+	 */
+	public void setBits(long bits) {
+		this.bits = bits;
+	}
+}
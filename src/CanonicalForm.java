@@ -0,0 +1,711 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * @author Joshua Boone
+ *
+ * The smallest representative of a board under the sudoku symmetries: relabeling the
+ * values, swapping rows within a band, columns within a stack, whole bands, whole
+ * stacks, and transposing. Two boards have the same canonical form exactly when one can
+ * be turned into the other, so it is used to find duplicate puzzles.
+ *
+ * The canonical board is the lexicographically smallest in row-major order, with 0 for
+ * empty cells and values numbered in the order they first appear. It is found one row at
+ * a time, keeping every partial transform that gives the smallest rows so far. Columns are
+ * only fixed once a row tells them apart: columns that have been empty in every row so
+ * far stay interchangeable, and so do stacks that have been empty, which keeps the number
+ * of partial transforms small on sparse puzzles.
+ *
+ * The search stays small on puzzles, but a complete grid of 16x16 or more can have so
+ * many tied transforms that keeping them all is not practical, so a board is rejected
+ * once the transforms built for one row would fill a quarter of the heap.
+ *
+ * The fingerprint is a 128-bit hash of the canonical board, compact enough to keep for
+ * every puzzle of a large batch.
+ *
+ */
+public class CanonicalForm
+{
+	// Fraction of the heap the partial transforms of one level may fill before a board is rejected
+	private static final int	HEAP_SHARE	= 4;
+
+	private int[]		cells;
+	private int			dimension;
+	private long		high;
+	private long		low;
+
+	private CanonicalForm(int[] cells, int dim)
+	{
+		this.cells	= cells;
+		dimension	= dim;
+		high		= hash(cells, 0x9E3779B97F4A7C15L);
+		low			= hash(cells, 0xC2B2AE3D27D4EB4FL);
+	}
+
+	/**
+	 * Computes the canonical form of a board's current values.
+	 *
+	 * @param board the board, up to 64x64
+	 */
+	public static CanonicalForm of(Board board)
+	{
+		return of(board.copyValues(new int[board.getSize()]), board.getDimension());
+	}
+
+	/**
+	 * Computes the canonical form of a game's current board.
+	 *
+	 * @param gameState the game
+	 */
+	public static CanonicalForm of(GameState gameState)
+	{
+		return of(gameState.getBoard());
+	}
+
+	/**
+	 * Computes the canonical form of a board.
+	 *
+	 * @param values cell values indexed by row * dimension + col, -1 or 0 for empty cells;
+	 *               no value may repeat within a row or column
+	 * @param dim    dimension of the board, a perfect square up to 64
+	 * @throws IllegalArgumentException if the board has too many tied transforms to search,
+	 *                                  which only happens on nearly complete large grids
+	 */
+	public static CanonicalForm of(int[] values, int dim)
+	{
+		int[] grid			= new int[dim*dim];
+		int[] transposed	= new int[dim*dim];
+		for(int row = 0; row < dim; row++)
+		{
+			for(int col = 0; col < dim; col++)
+			{
+				int value = Math.max(0, values[row*dim + col]);
+				grid[row*dim + col]			= value;
+				transposed[col*dim + row]	= value;
+			}
+		}
+
+		ArrayList<State> frontier = new ArrayList<State>();
+		frontier.add(new State(grid, false, dim));
+		frontier.add(new State(transposed, true, dim));
+
+		int[] best	= new int[dim];
+		int[] codes	= new int[dim];
+		for(int level = 0; level < dim; level++)
+		{
+			Budget				budget		= new Budget(dim);
+			ArrayList<State>	winners		= new ArrayList<State>();
+			ArrayList<Integer>	winnerRows	= new ArrayList<Integer>();
+			boolean				found		= false;
+
+			for(State state : frontier)
+			{
+				for(int row : state.candidateRows(level))
+				{
+					state.rowCodes(row, codes);
+
+					int order = found ? Arrays.compare(codes, best) : -1;
+					if(order < 0)
+					{
+						System.arraycopy(codes, 0, best, 0, dim);
+						winners.clear();
+						winnerRows.clear();
+						found = true;
+					}
+					if(order <= 0)
+					{
+						winners.add(state);
+						winnerRows.add(row);
+					}
+				}
+			}
+
+			// States that would behave the same from here on only need to be kept once
+			HashSet<State>	seen	= new HashSet<State>();
+			frontier				= new ArrayList<State>();
+			for(int i = 0; i < winners.size(); i++)
+			{
+				for(State child : winners.get(i).children(level, winnerRows.get(i), budget))
+				{
+					if(seen.add(child))
+						frontier.add(child);
+				}
+			}
+		}
+
+		return new CanonicalForm(frontier.get(0).toCells(), dim);
+	}
+
+	/**
+	 * Mixes every cell into a 64-bit hash.
+	 */
+	private static long hash(int[] cells, long seed)
+	{
+		long h = seed ^ cells.length;
+		for(int cell : cells)
+		{
+			h ^= cell;
+			h *= 0xFF51AFD7ED558CCDL;
+			h ^= h >>> 32;
+		}
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object other)
+	{
+		return other instanceof CanonicalForm && Arrays.equals(cells, ((CanonicalForm) other).cells);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return (int) high;
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the canonical cells indexed by row * dimension + col, 0 for empty cells
+	 */
+	public int[] getCells() {
+		return cells.clone();
+	}
+
+	/**
+	 * @return the dimension
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return the high 64 bits of the fingerprint
+	 */
+	public long getHigh() {
+		return high;
+	}
+
+	/**
+	 * @return the low 64 bits of the fingerprint
+	 */
+	public long getLow() {
+		return low;
+	}
+
+
+	/**
+	 * A partial transform: the source rows of the output rows placed so far, the value
+	 * labels handed out so far, and what is known about the source of each output column.
+	 *
+	 * stackMask holds the source stacks an output stack can still be. Output stacks that
+	 * are not fixed yet hold the same mask as the others they are interchangeable with.
+	 * colMask does the same for the columns of a fixed stack.
+	 */
+	private static final class State
+	{
+		private static final int	FRESH	= Integer.MAX_VALUE;
+
+		private int[]		grid;
+		private boolean		transposed;
+		private int			dimension;
+		private int			sqrt;
+
+		private int[]		rowAt;
+		private long		usedRows;
+		private int[]		bandAt;
+		private int[]		label;
+		private int			nextLabel;
+		private long[]		stackMask;
+		private long[]		colMask;
+
+		private State(int[] grid, boolean transposed, int dim)
+		{
+			this.grid		= grid;
+			this.transposed	= transposed;
+			dimension		= dim;
+			sqrt			= (int) Math.sqrt(dim);
+
+			rowAt			= new int[dim];
+			bandAt			= new int[sqrt];
+			label			= new int[dim + 1];
+			nextLabel		= 1;
+			stackMask		= new long[sqrt];
+			colMask			= new long[dim];
+
+			Arrays.fill(bandAt, -1);
+			long stacks = sqrt == 64 ? -1L : (1L << sqrt) - 1;
+			Arrays.fill(stackMask, stacks);
+
+			// A single stack is fixed from the start
+			if(sqrt == 1)
+				fixStack(0, 0);
+		}
+
+		private State(State other)
+		{
+			grid		= other.grid;
+			transposed	= other.transposed;
+			dimension	= other.dimension;
+			sqrt		= other.sqrt;
+
+			rowAt		= other.rowAt.clone();
+			usedRows	= other.usedRows;
+			bandAt		= other.bandAt.clone();
+			label		= other.label.clone();
+			nextLabel	= other.nextLabel;
+			stackMask	= other.stackMask.clone();
+			colMask		= other.colMask.clone();
+		}
+
+		/**
+		 * Returns the source rows that can become the next output row while keeping bands together.
+		 */
+		private int[] candidateRows(int level)
+		{
+			int		band	= level / sqrt;
+			int[]	rows	= new int[dimension];
+			int		count	= 0;
+
+			for(int row = 0; row < dimension; row++)
+			{
+				if((usedRows & (1L << row)) != 0)
+					continue;
+				if(level % sqrt != 0 && row / sqrt != bandAt[band])
+					continue;
+				rows[count++] = row;
+			}
+			return Arrays.copyOf(rows, count);
+		}
+
+		/**
+		 * Code of one cell of a source row: 0 when empty, its label, or FRESH for a value
+		 * not labeled yet. Fresh values get the next labels in the order they are placed.
+		 */
+		private int code(int row, int col)
+		{
+			int value = grid[row*dimension + col];
+			if(value == 0)
+				return 0;
+			return label[value] != 0 ? label[value] : FRESH;
+		}
+
+		/**
+		 * Writes the smallest codes a source row can give as the next output row.
+		 */
+		private void rowCodes(int row, int[] codes)
+		{
+			int s = 0;
+			while(s < sqrt)
+			{
+				long mask = stackMask[s];
+				if(Long.bitCount(mask) == 1)
+				{
+					writeStack(row, Long.numberOfTrailingZeros(mask), s, codes);
+					s++;
+					continue;
+				}
+
+				// Interchangeable stacks go in order of their own smallest codes
+				int[][] strings = stackStrings(row, mask);
+				for(int[] string : strings)
+				{
+					System.arraycopy(string, 1, codes, s*sqrt, sqrt);
+					s++;
+				}
+			}
+		}
+
+		/**
+		 * Writes the codes of a fixed stack, each group of interchangeable columns sorted.
+		 */
+		private void writeStack(int row, int stack, int s, int[] codes)
+		{
+			int p = s*sqrt;
+			while(p < (s + 1)*sqrt)
+			{
+				long	mask	= colMask[p];
+				int		start	= p;
+				for(long m = mask; m != 0; m &= m - 1)
+				{
+					codes[p++] = code(row, Long.numberOfTrailingZeros(m));
+				}
+				Arrays.sort(codes, start, p);
+			}
+		}
+
+		/**
+		 * Returns the sorted codes of each stack in a mask, prefixed by the stack and sorted.
+		 */
+		private int[][] stackStrings(int row, long mask)
+		{
+			int[][]	strings	= new int[Long.bitCount(mask)][];
+			int		i		= 0;
+			for(long m = mask; m != 0; m &= m - 1)
+			{
+				int		stack	= Long.numberOfTrailingZeros(m);
+				int[]	string	= new int[sqrt + 1];
+				string[0] = stack;
+				for(int j = 0; j < sqrt; j++)
+				{
+					string[j + 1] = code(row, stack*sqrt + j);
+				}
+				Arrays.sort(string, 1, sqrt + 1);
+				strings[i++] = string;
+			}
+			Arrays.sort(strings, (a, b) -> Arrays.compare(a, 1, sqrt + 1, b, 1, sqrt + 1));
+			return strings;
+		}
+
+		/**
+		 * Returns every way to place a source row as the next output row with the smallest codes.
+		 * Columns and stacks that the row tells apart are fixed; values seen for the first time
+		 * are labeled in order, which branches when several of them could swap places.
+		 */
+		private ArrayList<State> children(int level, int row, Budget budget)
+		{
+			budget.spend();
+			State skeleton = new State(this);
+			skeleton.rowAt[level]	= row;
+			skeleton.usedRows		|= 1L << row;
+			if(level % sqrt == 0)
+				skeleton.bandAt[level / sqrt] = row / sqrt;
+
+			// Each entry lists output positions and the items that can fill them in any order
+			ArrayList<int[]>	positions	= new ArrayList<int[]>();
+			ArrayList<int[]>	items		= new ArrayList<int[]>();
+			ArrayList<Boolean>	areStacks	= new ArrayList<Boolean>();
+
+			int s = 0;
+			while(s < sqrt)
+			{
+				long mask = stackMask[s];
+				if(Long.bitCount(mask) == 1)
+				{
+					skeleton.refineStack(row, s, positions, items, areStacks);
+					s++;
+					continue;
+				}
+
+				int[][]	strings	= stackStrings(row, mask);
+				int		empty	= 0;
+				while(empty < strings.length && strings[empty][sqrt] == 0)
+				{
+					empty++;
+				}
+
+				// Stacks still empty stay interchangeable at the front
+				long emptyMask = 0;
+				for(int i = 0; i < empty; i++)
+				{
+					emptyMask |= 1L << strings[i][0];
+				}
+				for(int i = 0; i < empty; i++)
+				{
+					skeleton.stackMask[s + i] = emptyMask;
+				}
+				if(empty == 1)
+					skeleton.fixStack(s, strings[0][0]);
+
+				// The rest are fixed, except runs with equal codes which can go in any order
+				int i = empty;
+				while(i < strings.length)
+				{
+					int j = i + 1;
+					while(j < strings.length && Arrays.compare(strings[i], 1, sqrt + 1, strings[j], 1, sqrt + 1) == 0)
+					{
+						j++;
+					}
+					if(j - i == 1)
+					{
+						skeleton.fixStack(s + i, strings[i][0]);
+						skeleton.refineStack(row, s + i, positions, items, areStacks);
+					}
+					else
+					{
+						int[] run		= new int[j - i];
+						int[] targets	= new int[j - i];
+						for(int k = i; k < j; k++)
+						{
+							run[k - i]		= strings[k][0];
+							targets[k - i]	= s + k;
+						}
+						positions.add(targets);
+						items.add(run);
+						areStacks.add(true);
+					}
+					i = j;
+				}
+				s += strings.length;
+			}
+
+			// Expand every run into all of its orders
+			ArrayList<State> children = new ArrayList<State>();
+			children.add(skeleton);
+			for(int k = 0; k < positions.size(); k++)
+			{
+				ArrayList<State> expanded = new ArrayList<State>();
+				for(State child : children)
+				{
+					permute(child, positions.get(k), items.get(k), areStacks.get(k), 0, expanded, budget);
+				}
+				children = expanded;
+			}
+
+			// Stacks fixed by a run still have to sort their own columns
+			int expandedCount = children.size();
+			for(int k = 0; k < expandedCount; k++)
+			{
+				children.get(k).refineRunStacks(row, positions, areStacks, children, k, budget);
+			}
+
+			for(State child : children)
+			{
+				child.labelRow(row);
+			}
+			return children;
+		}
+
+		/**
+		 * Fixes an output stack to a source stack with all of its columns interchangeable.
+		 */
+		private void fixStack(int s, int stack)
+		{
+			stackMask[s] = 1L << stack;
+
+			long columns = (sqrt == 64 ? -1L : (1L << sqrt) - 1) << (stack*sqrt);
+			for(int p = s*sqrt; p < (s + 1)*sqrt; p++)
+			{
+				colMask[p] = columns;
+			}
+		}
+
+		/**
+		 * Sorts the column groups of a fixed stack by their codes in a row, recording the
+		 * fresh values that could go in any order.
+		 */
+		private void refineStack(int row, int s, ArrayList<int[]> positions, ArrayList<int[]> items, ArrayList<Boolean> areStacks)
+		{
+			int p = s*sqrt;
+			while(p < (s + 1)*sqrt)
+			{
+				long	mask	= colMask[p];
+				int		size	= Long.bitCount(mask);
+				int[][]	cols	= new int[size][];
+				int		i		= 0;
+				for(long m = mask; m != 0; m &= m - 1)
+				{
+					int col = Long.numberOfTrailingZeros(m);
+					cols[i++] = new int[] {code(row, col), col};
+				}
+				Arrays.sort(cols, (a, b) -> Integer.compare(a[0], b[0]));
+
+				long	emptyMask	= 0;
+				int		fresh		= 0;
+				for(int[] col : cols)
+				{
+					if(col[0] == 0)
+						emptyMask |= 1L << col[1];
+					else if(col[0] == FRESH)
+						fresh++;
+				}
+
+				int[] run		= new int[fresh];
+				int[] targets	= new int[fresh];
+				int f = 0;
+				for(int k = 0; k < size; k++)
+				{
+					if(cols[k][0] == 0)
+						colMask[p + k] = emptyMask;
+					else if(cols[k][0] == FRESH)
+					{
+						run[f]		= cols[k][1];
+						targets[f]	= p + k;
+						colMask[p + k] = 1L << cols[k][1];
+						f++;
+					}
+					else
+						colMask[p + k] = 1L << cols[k][1];
+				}
+				if(fresh > 1)
+				{
+					positions.add(targets);
+					items.add(run);
+					areStacks.add(false);
+				}
+
+				p += size;
+			}
+		}
+
+		/**
+		 * Once a run of interchangeable stacks has been placed, sorts the columns of each of
+		 * its stacks, which can branch again on fresh values.
+		 */
+		private void refineRunStacks(int row, ArrayList<int[]> positions, ArrayList<Boolean> areStacks, ArrayList<State> children, int index, Budget budget)
+		{
+			ArrayList<int[]>	subPositions	= new ArrayList<int[]>();
+			ArrayList<int[]>	subItems		= new ArrayList<int[]>();
+			ArrayList<Boolean>	subStacks		= new ArrayList<Boolean>();
+
+			for(int k = 0; k < positions.size(); k++)
+			{
+				if(!areStacks.get(k))
+					continue;
+				for(int s : positions.get(k))
+				{
+					refineStack(row, s, subPositions, subItems, subStacks);
+				}
+			}
+			if(subPositions.isEmpty())
+				return;
+
+			// Replace this child by every order of its fresh columns
+			ArrayList<State> expanded = new ArrayList<State>();
+			expanded.add(this);
+			for(int k = 0; k < subPositions.size(); k++)
+			{
+				ArrayList<State> next = new ArrayList<State>();
+				for(State child : expanded)
+				{
+					permute(child, subPositions.get(k), subItems.get(k), false, 0, next, budget);
+				}
+				expanded = next;
+			}
+			children.set(index, expanded.get(0));
+			for(int k = 1; k < expanded.size(); k++)
+			{
+				children.add(expanded.get(k));
+			}
+		}
+
+		/**
+		 * Adds a copy of a state for every order of items over the target positions.
+		 */
+		private static void permute(State state, int[] targets, int[] run, boolean stacks, int k, ArrayList<State> out, Budget budget)
+		{
+			if(k == run.length)
+			{
+				budget.spend();
+				State child = new State(state);
+				for(int i = 0; i < run.length; i++)
+				{
+					if(stacks)
+						child.fixStack(targets[i], run[i]);
+					else
+						child.colMask[targets[i]] = 1L << run[i];
+				}
+				out.add(child);
+				return;
+			}
+
+			for(int i = k; i < run.length; i++)
+			{
+				int swap	= run[k];
+				run[k]		= run[i];
+				run[i]		= swap;
+
+				permute(state, targets, run, stacks, k + 1, out, budget);
+
+				run[i]		= run[k];
+				run[k]		= swap;
+			}
+		}
+
+		/**
+		 * Labels the values of a row seen for the first time, left to right.
+		 */
+		private void labelRow(int row)
+		{
+			for(int p = 0; p < dimension; p++)
+			{
+				long mask = colMask[p];
+				if(Long.bitCount(stackMask[p / sqrt]) != 1 || Long.bitCount(mask) != 1)
+					continue;
+
+				int value = grid[row*dimension + Long.numberOfTrailingZeros(mask)];
+				if(value != 0 && label[value] == 0)
+					label[value] = nextLabel++;
+			}
+		}
+
+		/**
+		 * Builds the output board. Columns still interchangeable are empty in every row.
+		 */
+		private int[] toCells()
+		{
+			int[] cells = new int[dimension*dimension];
+			for(int i = 0; i < dimension; i++)
+			{
+				for(int p = 0; p < dimension; p++)
+				{
+					if(Long.bitCount(stackMask[p / sqrt]) != 1)
+						continue;
+
+					int value = grid[rowAt[i]*dimension + Long.numberOfTrailingZeros(colMask[p])];
+					cells[i*dimension + p] = value == 0 ? 0 : label[value];
+				}
+			}
+			return cells;
+		}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			if(!(other instanceof State))
+				return false;
+
+			State state = (State) other;
+			return transposed == state.transposed && usedRows == state.usedRows
+				   && Arrays.equals(bandAt, state.bandAt) && Arrays.equals(label, state.label)
+				   && Arrays.equals(stackMask, state.stackMask) && Arrays.equals(colMask, state.colMask);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int h = Boolean.hashCode(transposed);
+			h = 31*h + Long.hashCode(usedRows);
+			h = 31*h + Arrays.hashCode(label);
+			h = 31*h + Arrays.hashCode(stackMask);
+			h = 31*h + Arrays.hashCode(colMask);
+			return h;
+		}
+	}
+
+	/**
+	 * Running total of the partial transforms built for one level, across all of its
+	 * winners. Once it passes what fits in a share of the heap the board is rejected,
+	 * before the search runs out of memory.
+	 */
+	private static final class Budget
+	{
+		private int			dimension;
+		private long		remaining;
+
+		private Budget(int dim)
+		{
+			dimension	= dim;
+
+			// Rough size of a state: its arrays, headers, and a slot in the frontier and its set
+			long bytes	= 200 + 24L*dim + 12L*(long) Math.sqrt(dim);
+			remaining	= Runtime.getRuntime().maxMemory() / HEAP_SHARE / bytes;
+		}
+
+		/**
+		 * Counts one more state.
+		 *
+		 * @throws IllegalArgumentException if the level has built too many
+		 */
+		private void spend()
+		{
+			if(--remaining < 0)
+				throw new IllegalArgumentException("Too many symmetric transforms to canonicalize a " + dimension + "x" + dimension + " board");
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/**
+ * @author Joshua Boone
+ *
+ * Unordered set of cell indices (row * dimension + col).
+ * The cells are kept packed at the front of a dense array, with a position map
+ * from each cell to its slot. Removing a cell moves the last cell into its slot,
+ * so adding, removing, membership and reading the cell in a random slot are
+ * constant time.
+ *
+ */
+public class CellSet
+{
+	private int[]	cells;
+	private int[]	position;
+	private int		size;
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity number of cells on the board
+	 */
+	public CellSet(int capacity)
+	{
+		cells		= new int[capacity];
+		position	= new int[capacity];
+		size		= 0;
+
+		for(int cell = 0; cell < capacity; cell++)
+		{
+			position[cell] = -1;
+		}
+	}
+
+	/**
+	 * Adds a cell unless it is already in the set.
+	 *
+	 * @param cell index of the cell
+	 * @return true if the cell was added
+	 */
+	public boolean add(int cell)
+	{
+		if(contains(cell))
+			return false;
+
+		cells[size]		= cell;
+		position[cell]	= size;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Removes a cell by moving the last cell into its slot.
+	 *
+	 * @param cell index of the cell
+	 * @return true if the cell was in the set
+	 */
+	public boolean remove(int cell)
+	{
+		if(!contains(cell))
+			return false;
+
+		int slot	= position[cell];
+		int last	= cells[--size];
+
+		cells[slot]		= last;
+		position[last]	= slot;
+		position[cell]	= -1;
+		return true;
+	}
+
+	/**
+	 * @param cell index of the cell
+	 * @return true if the cell is in the set
+	 */
+	public boolean contains(int cell)
+	{
+		return position[cell] != -1;
+	}
+
+	/**
+	 * Returns the cell in a slot. Slots are 0..size()-1 and change as cells are removed.
+	 *
+	 * @param slot slot of the cell
+	 */
+	public int get(int slot)
+	{
+		if(slot < 0 || slot >= size)
+			throw new IndexOutOfBoundsException("Index: " + slot + ", Size: " + size);
+
+		return cells[slot];
+	}
+
+	/**
+	 * @return true if the set has no cells
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * @return the number of cells in the set
+	 */
+	public int size()
+	{
+		return size;
+	}
+}
@@ -0,0 +1,244 @@
+/**
+ * @author Joshua Boone
+ *
+ * Incremental constraint store used while generating a puzzle.
+ *
+ * Holds the candidate domain of every cell as a bitmask. Each assignment opens a new
+ * level, removes the value from the cell's peers and propagates naked singles from
+ * the cells that changed. Every domain removal is recorded on an undo trail, so
+ * backtracking pops the trail back to the previous level instead of recomputing
+ * the board.
+ *
+ */
+public class ConstraintStore
+{
+	private int			dimension;
+	private Topology	topology;
+
+	private int[]		values;
+	private long[]		domains;
+
+	// Undo trail of domain removals, split into one level per assignment
+	private int[]		trailCell;
+	private long[]		trailMask;
+	private int			trailTop;
+	private int[]		levelStart;
+	private int[]		levelCell;
+	private int			level;
+
+	private ArcQueue	queue;
+
+	private int			undecided;
+	private int			wipeouts;
+
+	private GenerationStats	stats;
+
+	/**
+	 * Constructor
+	 *
+	 * @param dim dimension of the puzzle
+	 */
+	public ConstraintStore(int dim)
+	{
+		dimension	= dim;
+		topology	= Topology.of(dim);
+
+		int cells	= dim*dim;
+		values		= new int[cells];
+		domains		= new long[cells];
+
+		// A cell can lose at most dimension values, so the trail never needs more entries than that
+		trailCell	= new int[cells*dim + cells];
+		trailMask	= new long[cells*dim + cells];
+		trailTop	= 0;
+		levelStart	= new int[cells + 1];
+		levelCell	= new int[cells + 1];
+		level		= 0;
+
+		queue		= new ArcQueue(cells);
+
+		long full	= CandidateSet.fullMask(dim);
+		for(int cell = 0; cell < cells; cell++)
+		{
+			values[cell]	= -1;
+			domains[cell]	= full;
+		}
+
+		undecided	= dim > 1 ? cells : 0;
+		wipeouts	= 0;
+
+		stats		= new GenerationStats();
+	}
+
+	/**
+	 * Assigns a value to an empty cell and propagates the change to its peers.
+	 * Opens a new level that undo() will take back.
+	 *
+	 * @param cell  index of the cell (row * dimension + col)
+	 * @param value value to assign
+	 * @return the status after propagation, see getStatus()
+	 */
+	public int assign(int cell, int value)
+	{
+		levelStart[level]	= trailTop;
+		levelCell[level]	= cell;
+		level++;
+
+		values[cell] = value;
+
+		long mask = CandidateSet.maskOf(value);
+		if((domains[cell] & mask) == 0)
+		{
+			// Value was already ruled out, wipe the domain so the level reports a conflict
+			removeValues(cell, domains[cell]);
+			return getStatus();
+		}
+
+		removeValues(cell, domains[cell] & ~mask);
+
+		queue.clear();
+		queue.add(cell);
+		propagate();
+
+		return getStatus();
+	}
+
+	/**
+	 * Takes back the most recent assignment and every removal it caused.
+	 *
+	 * @return index of the cell that was unassigned
+	 */
+	public int undo()
+	{
+		level--;
+
+		int start = levelStart[level];
+		while(trailTop > start)
+		{
+			trailTop--;
+			int		cell	= trailCell[trailTop];
+			long	before	= domains[cell];
+			long	after	= before | trailMask[trailTop];
+
+			if(before == 0)
+				wipeouts--;
+			if(Long.bitCount(before) <= 1 && Long.bitCount(after) > 1)
+				undecided++;
+
+			domains[cell] = after;
+		}
+
+		int cell		= levelCell[level];
+		values[cell]	= -1;
+		return cell;
+	}
+
+	/**
+	 * Removes the value of every queued single from its peers until nothing changes
+	 * or a domain is wiped out.
+	 */
+	private void propagate()
+	{
+		while(!queue.isEmpty() && wipeouts == 0)
+		{
+			int		cell	= queue.remove();
+			long	mask	= domains[cell];
+			int[]	peers	= topology.getPeers(cell);
+
+			for(int i = 0; i < peers.length && wipeouts == 0; i++)
+			{
+				removeFromPeer(peers[i], mask);
+			}
+		}
+	}
+
+	/**
+	 * Removes a single's value from one of its peers, queueing the peer if it became a single.
+	 */
+	private void removeFromPeer(int peer, long mask)
+	{
+		stats.arcs++;
+		if((domains[peer] & mask) == 0)
+			return;
+
+		removeValues(peer, mask);
+		if(Long.bitCount(domains[peer]) == 1)
+			queue.add(peer);
+	}
+
+	/**
+	 * Removes values from a domain and records them on the trail.
+	 */
+	private void removeValues(int cell, long mask)
+	{
+		long before	= domains[cell];
+		long after	= before & ~mask;
+		if(before == after)
+			return;
+
+		trailCell[trailTop]	= cell;
+		trailMask[trailTop]	= before & mask;
+		trailTop++;
+		stats.removals++;
+
+		if(Long.bitCount(before) > 1 && Long.bitCount(after) <= 1)
+			undecided--;
+		if(after == 0)
+			wipeouts++;
+
+		domains[cell] = after;
+	}
+
+	/**
+	 * Returns -1 if some cell has no values left, 1 if every cell is pinned to a single
+	 * value, and 0 if the puzzle can still be solved in more than one way by propagation alone.
+	 */
+	public int getStatus()
+	{
+		if(wipeouts > 0)
+			return -1;
+		if(undecided == 0)
+			return 1;
+		return 0;
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @param cell index of the cell
+	 * @return the assigned value of the cell, or -1 if it is empty
+	 */
+	public int getValue(int cell) {
+		return values[cell];
+	}
+
+	/**
+	 * @param cell index of the cell
+	 * @return the candidate domain of the cell as a bitmask
+	 */
+	public long getDomain(int cell) {
+		return domains[cell];
+	}
+
+	/**
+	 * @return the number of assignments currently on the trail
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * @return the counters that propagation adds its arcs and domain removals to
+	 */
+	public GenerationStats getStats() {
+		return stats;
+	}
+
+	/**
+	 * @return the dimension
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+}
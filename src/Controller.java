@@ -1,4 +1,9 @@
-import java.util.Scanner;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
 /**
  * @author Joshua Boone
  *
@@ -8,7 +13,8 @@ import java.util.Scanner;
  */
 public class Controller 
 {
-	Scanner scanner =  new Scanner(System.in);
+	BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+	ArrayDeque<String> pending = new ArrayDeque<String>();
 	public Controller() 
 	{
 		
@@ -16,8 +22,50 @@ public class Controller
 	
 	public String getInput()
 	{
-		String userInput = scanner.nextLine();
+		if(!pending.isEmpty())
+			return pending.poll();
+		
+		String userInput;
+		try
+		{
+			userInput = reader.readLine();
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		if(userInput == null)
+			throw new NoSuchElementException("No line found");
 		userInput = userInput.toUpperCase();
 		return userInput;
 	}
+	
+	/**
+	 * Puts a line back, to be returned by the next getInput() before anything new.
+	 * 
+	 * @param userInput a line returned by getInput()
+	 */
+	public void unread(String userInput)
+	{
+		pending.add(userInput);
+	}
+	
+	/**
+	 * Lets the game loop poll for input while it waits on something else.
+	 * 
+	 * @return true if a line of input may be read without blocking
+	 */
+	public boolean hasInput()
+	{
+		if(!pending.isEmpty())
+			return true;
+		try
+		{
+			return reader.ready();
+		}
+		catch(IOException e)
+		{
+			return false;
+		}
+	}
 }
@@ -0,0 +1,438 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * @author Joshua Boone
+ *
+ * Exact cover solver (Knuth's Algorithm X with dancing links) for puzzles of any dimension.
+ *
+ * Every candidate (row, col, value) is a matrix row covering four constraint columns:
+ * the cell, the value in the row, the value in the column and the value in the region.
+ * The matrix is built once per dimension; each call selects the givens, searches,
+ * and then restores the matrix so it can be reused for the next board.
+ *
+ */
+public class DancingLinks
+{
+	private int			dimension;
+	private int			columns;
+
+	// Node links. Node 0 is the root, nodes 1..columns are the column headers.
+	private int[]		left;
+	private int[]		right;
+	private int[]		up;
+	private int[]		down;
+	private int[]		column;
+	private int[]		candidate;
+	private int[]		size;
+
+	private int[]		rowStart;
+	private boolean[]	covered;
+
+	private int[]		chosen;
+	private int[]		givens;
+	private int			givenCount;
+	private int[]		solution;
+
+	private int			count;
+	private int			limit;
+	private long		nodes;
+	private long		nodeLimit;
+	private boolean		aborted;
+	private long		elapsedNanos;
+
+	private Consumer<int[]>	visitor;
+	private AtomicBoolean	cancelled;
+
+	/**
+	 * Constructor
+	 *
+	 * @param dim dimension of the puzzles to solve
+	 */
+	public DancingLinks(int dim)
+	{
+		dimension	= dim;
+		nodeLimit	= Long.MAX_VALUE;
+		columns		= 4*dim*dim;
+
+		Topology	topology	= Topology.of(dim);
+		int			candidates	= dim*dim*dim;
+		int			nodeCount	= 1 + columns + 4*candidates;
+
+		left		= new int[nodeCount];
+		right		= new int[nodeCount];
+		up			= new int[nodeCount];
+		down		= new int[nodeCount];
+		column		= new int[nodeCount];
+		candidate	= new int[nodeCount];
+		size		= new int[columns + 1];
+
+		rowStart	= new int[candidates];
+		covered		= new boolean[columns + 1];
+
+		chosen		= new int[dim*dim];
+		givens		= new int[dim*dim];
+		solution	= new int[dim*dim];
+
+		// Link the root and column headers into a ring
+		for(int c = 0; c <= columns; c++)
+		{
+			left[c]		= c == 0 ? columns : c - 1;
+			right[c]	= c == columns ? 0 : c + 1;
+			up[c]		= c;
+			down[c]		= c;
+			column[c]	= c;
+		}
+
+		// Add four nodes for every candidate
+		int node = columns + 1;
+		for(int row = 0; row < dim; row++)
+		{
+			for(int col = 0; col < dim; col++)
+			{
+				int region = topology.getBox(row*dim + col);
+
+				for(int value = 0; value < dim; value++)
+				{
+					int index		= (row*dim + col)*dim + value;
+					rowStart[index]	= node;
+
+					addNode(node,     1 + row*dim + col,                   index);
+					addNode(node + 1, 1 + dim*dim + row*dim + value,       index);
+					addNode(node + 2, 1 + 2*dim*dim + col*dim + value,     index);
+					addNode(node + 3, 1 + 3*dim*dim + region*dim + value,  index);
+
+					for(int i = 0; i < 4; i++)
+					{
+						left[node + i]	= node + (i + 3) % 4;
+						right[node + i]	= node + (i + 1) % 4;
+					}
+					node += 4;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Appends a node to the bottom of a column.
+	 */
+	private void addNode(int node, int col, int index)
+	{
+		column[node]	= col;
+		candidate[node]	= index;
+		up[node]		= up[col];
+		down[node]		= col;
+		down[up[col]]	= node;
+		up[col]			= node;
+		size[col]++;
+	}
+
+	/**
+	 * Solves the given board.
+	 *
+	 * @param board cell values indexed by row * dimension + col, -1 for empty cells
+	 * @return the solution indexed by row * dimension + col, or null if there is none
+	 *         or the search was aborted before finding one
+	 */
+	public int[] solve(int[] board)
+	{
+		if(countSolutions(board, 1) == 0 || aborted)
+			return null;
+
+		return solution.clone();
+	}
+
+	/**
+	 * Solves the board currently held by a game state.
+	 *
+	 * @param gameState the game state to solve
+	 * @return the solution indexed by row * dimension + col, or null if there is none
+	 *         or the search was aborted before finding one
+	 */
+	public int[] solve(GameState gameState)
+	{
+		return solve(toBoard(gameState));
+	}
+
+	/**
+	 * Counts the solutions of the given board, stopping at the limit.
+	 * The first solution found is kept and available from getSolution().
+	 *
+	 * @param board cell values indexed by row * dimension + col, -1 for empty cells
+	 * @param max   number of solutions at which to stop counting
+	 * @return the number of solutions found, at most max; only a lower bound if the
+	 *         search was aborted, see isAborted()
+	 */
+	public int countSolutions(int[] board, int max)
+	{
+		return run(board, max, null);
+	}
+
+	/**
+	 * Counts the solutions of the board currently held by a game state, stopping at the limit.
+	 *
+	 * @param gameState the game state to count
+	 * @param max       number of solutions at which to stop counting
+	 * @return the number of solutions found, at most max; only a lower bound if the
+	 *         search was aborted, see isAborted()
+	 */
+	public int countSolutions(GameState gameState, int max)
+	{
+		return run(toBoard(gameState), max, null);
+	}
+
+	/**
+	 * Passes every solution of the given board to a visitor, stopping at the limit.
+	 * The array handed to the visitor is reused between solutions.
+	 *
+	 * @param board   cell values indexed by row * dimension + col, -1 for empty cells
+	 * @param max     number of solutions at which to stop
+	 * @param visitor receives each solution indexed by row * dimension + col
+	 * @return the number of solutions visited, which is less than all of them if the
+	 *         search was aborted, see isAborted()
+	 */
+	public int enumerate(int[] board, int max, Consumer<int[]> visitor)
+	{
+		return run(board, max, visitor);
+	}
+
+	/**
+	 * Selects the givens, searches and restores the matrix.
+	 */
+	private int run(int[] board, int max, Consumer<int[]> consumer)
+	{
+		long start	= System.nanoTime();
+
+		count		= 0;
+		limit		= max;
+		nodes		= 0;
+		aborted		= false;
+		visitor		= consumer;
+		givenCount	= 0;
+
+		boolean consistent = true;
+		for(int cell = 0; cell < dimension*dimension && consistent; cell++)
+		{
+			if(board[cell] != -1)
+				consistent = selectGiven(rowStart[cell*dimension + board[cell] - 1]);
+		}
+
+		if(consistent && limit > 0)
+			search(0);
+
+		// Restore the matrix in reverse order
+		while(givenCount > 0)
+		{
+			int node = givens[--givenCount];
+			for(int j = left[node]; j != node; j = left[j])
+			{
+				uncover(column[j]);
+			}
+			uncover(column[node]);
+		}
+
+		visitor			= null;
+		elapsedNanos	= System.nanoTime() - start;
+		return count;
+	}
+
+	/**
+	 * Covers every column of a given's row.
+	 *
+	 * @return false if the given conflicts with an earlier one
+	 */
+	private boolean selectGiven(int node)
+	{
+		int j = node;
+		do
+		{
+			if(covered[column[j]])
+				return false;
+			j = right[j];
+		}
+		while(j != node);
+
+		cover(column[node]);
+		for(j = right[node]; j != node; j = right[j])
+		{
+			cover(column[j]);
+		}
+		givens[givenCount++] = node;
+		return true;
+	}
+
+	/**
+	 * Algorithm X. Branches on the column with the fewest remaining rows.
+	 *
+	 * @param depth number of rows chosen so far
+	 */
+	private void search(int depth)
+	{
+		nodes++;
+
+		// Stop early once the owning search has been cancelled or the node budget is spent
+		if(nodes > nodeLimit || ((nodes & 1023) == 0 && cancelled != null && cancelled.get()))
+			aborted = true;
+		if(aborted || count >= limit)
+			return;
+
+		if(right[0] == 0)
+		{
+			recordSolution(depth);
+			return;
+		}
+
+		int best = right[0];
+		for(int c = right[best]; c != 0; c = right[c])
+		{
+			if(size[c] < size[best])
+			{
+				best = c;
+				if(size[c] <= 1)
+					break;
+			}
+		}
+
+		if(size[best] == 0)
+			return;
+
+		cover(best);
+		for(int r = down[best]; r != best && count < limit && !aborted; r = down[r])
+		{
+			chosen[depth] = r;
+			for(int j = right[r]; j != r; j = right[j])
+			{
+				cover(column[j]);
+			}
+
+			search(depth + 1);
+
+			for(int j = left[r]; j != r; j = left[j])
+			{
+				uncover(column[j]);
+			}
+		}
+		uncover(best);
+	}
+
+	/**
+	 * Builds the solution grid from the givens and the chosen rows.
+	 */
+	private void recordSolution(int depth)
+	{
+		count++;
+
+		if(count > 1 && visitor == null)
+			return;
+
+		for(int i = 0; i < givenCount; i++)
+		{
+			int index = candidate[givens[i]];
+			solution[index / dimension] = index % dimension + 1;
+		}
+		for(int i = 0; i < depth; i++)
+		{
+			int index = candidate[chosen[i]];
+			solution[index / dimension] = index % dimension + 1;
+		}
+
+		if(visitor != null)
+			visitor.accept(solution);
+	}
+
+	private void cover(int c)
+	{
+		covered[c]			= true;
+		left[right[c]]		= left[c];
+		right[left[c]]		= right[c];
+		for(int i = down[c]; i != c; i = down[i])
+		{
+			for(int j = right[i]; j != i; j = right[j])
+			{
+				up[down[j]]	= up[j];
+				down[up[j]]	= down[j];
+				size[column[j]]--;
+			}
+		}
+	}
+
+	private void uncover(int c)
+	{
+		for(int i = up[c]; i != c; i = up[i])
+		{
+			for(int j = left[i]; j != i; j = left[j])
+			{
+				size[column[j]]++;
+				up[down[j]]	= j;
+				down[up[j]]	= j;
+			}
+		}
+		left[right[c]]		= c;
+		right[left[c]]		= c;
+		covered[c]			= false;
+	}
+
+	/**
+	 * Reads the cell values of a game state into a flat board.
+	 */
+	private int[] toBoard(GameState gameState)
+	{
+		return gameState.getBoard().copyValues(new int[dimension*dimension]);
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the first solution found by the last search, indexed by row * dimension + col
+	 */
+	public int[] getSolution() {
+		return solution;
+	}
+
+	/**
+	 * @return the number of search nodes visited by the last search
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return the wall time of the last search in nanoseconds
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * @param cancelled flag that stops searching early once it is set
+	 */
+	public void setCancelled(AtomicBoolean cancelled) {
+		this.cancelled = cancelled;
+	}
+
+	/**
+	 * @return true if the last search stopped early because it was cancelled or ran out
+	 *         of nodes, so its count is not final
+	 */
+	public boolean isAborted() {
+		return aborted;
+	}
+
+	/**
+	 * Caps the search nodes of each search. A search that runs out of nodes stops with
+	 * the solutions found so far and reports itself as aborted.
+	 *
+	 * @param nodeLimit maximum nodes per search, Long.MAX_VALUE for no cap
+	 */
+	public void setNodeLimit(long nodeLimit) {
+		this.nodeLimit = nodeLimit;
+	}
+
+	/**
+	 * @return the dimension
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+}
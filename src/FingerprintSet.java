@@ -0,0 +1,157 @@
+/**
+ * @author Joshua Boone
+ *
+ * A set of 128-bit canonical-form fingerprints.
+ *
+ * Fingerprints are stored as pairs of longs in one open-addressed array with linear
+ * probing, so a batch of millions of puzzles costs 16 bytes per slot and no object per
+ * entry. The pair (0, 0) marks an empty slot and is tracked with a flag of its own.
+ * The table doubles once it is half full.
+ *
+ * Not thread-safe; it is meant to be owned by the one thread that writes the puzzles.
+ *
+ */
+public class FingerprintSet
+{
+	private static final int	MIN_CAPACITY = 16;
+
+	// high and low of each slot, side by side
+	private long[]		slots;
+	private int			mask;
+	private int			size;
+	private boolean		hasZero;
+
+	/**
+	 * Constructor
+	 */
+	public FingerprintSet()
+	{
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param expected number of fingerprints expected, to size the table up front
+	 */
+	public FingerprintSet(int expected)
+	{
+		int capacity = MIN_CAPACITY;
+		while(capacity < 2L*expected && capacity < (1 << 29))
+		{
+			capacity <<= 1;
+		}
+		slots	= new long[2*capacity];
+		mask	= capacity - 1;
+	}
+
+	/**
+	 * Adds the fingerprint of a canonical form.
+	 *
+	 * @param form the canonical form
+	 * @return true if the fingerprint was not in the set yet
+	 */
+	public boolean add(CanonicalForm form)
+	{
+		return add(form.getHigh(), form.getLow());
+	}
+
+	/**
+	 * Adds a fingerprint.
+	 *
+	 * @param high upper 64 bits of the fingerprint
+	 * @param low  lower 64 bits of the fingerprint
+	 * @return true if the fingerprint was not in the set yet
+	 */
+	public boolean add(long high, long low)
+	{
+		if(high == 0 && low == 0)
+		{
+			if(hasZero)
+				return false;
+			hasZero = true;
+			size++;
+			return true;
+		}
+
+		int slot = find(high, low);
+		if(slots[2*slot] != 0 || slots[2*slot + 1] != 0)
+			return false;
+
+		slots[2*slot]		= high;
+		slots[2*slot + 1]	= low;
+		if(++size > (mask + 1) / 2)
+			grow();
+		return true;
+	}
+
+	/**
+	 * @param form the canonical form
+	 * @return whether the fingerprint of the canonical form is in the set
+	 */
+	public boolean contains(CanonicalForm form)
+	{
+		return contains(form.getHigh(), form.getLow());
+	}
+
+	/**
+	 * @param high upper 64 bits of the fingerprint
+	 * @param low  lower 64 bits of the fingerprint
+	 * @return whether the fingerprint is in the set
+	 */
+	public boolean contains(long high, long low)
+	{
+		if(high == 0 && low == 0)
+			return hasZero;
+
+		int slot = find(high, low);
+		return slots[2*slot] != 0 || slots[2*slot + 1] != 0;
+	}
+
+	/**
+	 * Returns the slot holding the fingerprint, or the empty slot where it belongs.
+	 */
+	private int find(long high, long low)
+	{
+		// The fingerprint is already a hash, so its bits can index the table directly
+		int slot = (int) (low ^ (low >>> 32)) & mask;
+		while(slots[2*slot] != 0 || slots[2*slot + 1] != 0)
+		{
+			if(slots[2*slot] == high && slots[2*slot + 1] == low)
+				return slot;
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Doubles the table and reinserts every fingerprint.
+	 */
+	private void grow()
+	{
+		long[] old = slots;
+
+		slots	= new long[2*old.length];
+		mask	= old.length - 1;
+
+		for(int i = 0; i < old.length; i += 2)
+		{
+			if(old[i] != 0 || old[i + 1] != 0)
+			{
+				int slot = find(old[i], old[i + 1]);
+				slots[2*slot]		= old[i];
+				slots[2*slot + 1]	= old[i + 1];
+			}
+		}
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the number of fingerprints in the set
+	 */
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,370 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author Joshua Boone
+ *
+ * Saves a game as a snapshot followed by an append-only journal of what happened since.
+ *
+ * The file starts with a fixed header:
+ *
+ *     offset  size
+ *          0     4  magic "SDKJ"
+ *          4     2  format version
+ *          6     2  dimension
+ *          8     4  max misses
+ *         12     4  max hints
+ *         16     4  misses so far
+ *         20     4  hints so far
+ *         24     1  flags, bit 0 set in free entry mode
+ *         25     7  reserved
+ *
+ * then the board as a PuzzleLibrary record: a mask of the filled cells and the answer key.
+ * Every action after that is one 4-byte entry: its type, a value and the cell. A move or a
+ * hint costs 4 bytes instead of a new copy of the board.
+ *
+ * Entries are buffered and written to the channel on flush, once per player action. Once
+ * the journal grows to COMPACT_RATIO times the size of the snapshot, a new snapshot of the
+ * current game is written to a temporary file and moved over the old one, so the file
+ * and the time to resume stay bounded however long the game runs.
+ *
+ * Resuming replays the journal onto the snapshot. A half-written entry at the end, left
+ * by a crash, is dropped.
+ *
+ * Not thread-safe; each game owns its journal.
+ *
+ */
+public class GameJournal implements Closeable
+{
+	static final int			MAGIC			= 0x53444B4A;
+	static final short			VERSION			= 1;
+	static final int			HEADER_SIZE		= 32;
+	static final int			ENTRY_SIZE		= 4;
+
+	private static final byte	MOVE			= 1;
+	private static final byte	MISS			= 2;
+	private static final byte	HINT			= 3;
+	private static final byte	FREE_ENTRY		= 4;
+
+	private static final int	BUFFER_SIZE		= 1 << 12;
+	private static final int	COMPACT_RATIO	= 4;
+
+	private Path				file;
+	private FileChannel			channel;
+	private ByteBuffer			buffer;
+	private GameState			gameState;
+	private int					snapshotSize;
+	private long				entries;
+
+	private GameJournal(Path file, GameState gameState)
+	{
+		this.file		= file;
+		this.gameState	= gameState;
+		buffer			= ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		snapshotSize	= HEADER_SIZE + PuzzleLibrary.recordSize(gameState.getDimension());
+	}
+
+	/**
+	 * Starts saving a game, replacing whatever was saved in the file before.
+	 * The game records every later action in the journal.
+	 *
+	 * @param file      file to save to
+	 * @param gameState the game
+	 * @return the journal
+	 */
+	public static GameJournal start(Path file, GameState gameState) throws IOException
+	{
+		GameJournal journal = new GameJournal(file, gameState);
+		journal.compact();
+		gameState.setJournal(journal);
+		return journal;
+	}
+
+	/**
+	 * Loads a saved game and replays its journal.
+	 * The game keeps recording to the same file.
+	 *
+	 * @param file the saved game
+	 * @return the game as it was after the last flushed action
+	 * @throws IOException if the file cannot be read or is not a saved game
+	 */
+	public static GameState resume(Path file) throws IOException
+	{
+		ByteBuffer saved;
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			if(channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE)
+				throw new IOException(file + " is not a saved game");
+
+			saved = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+			while(saved.hasRemaining())
+			{
+				if(channel.read(saved) < 0)
+					break;
+			}
+			saved.flip();
+		}
+
+		if(saved.getInt(0) != MAGIC)
+			throw new IOException(file + " is not a saved game");
+		if(saved.getShort(4) != VERSION)
+			throw new IOException(file + " has unsupported save version " + saved.getShort(4));
+
+		int dim = saved.getShort(6);
+		if(GameState.checkDimension(dim) != dim || saved.limit() < HEADER_SIZE + PuzzleLibrary.recordSize(dim))
+			throw new IOException(file + " has a corrupt header");
+
+		GameState gameState = new GameState(PuzzleLibrary.decode(saved, HEADER_SIZE, dim), saved.getInt(8), saved.getInt(12));
+		gameState.setNumOfMisses(saved.getInt(16));
+		gameState.setNumOfHints(saved.getInt(20));
+		gameState.setFreeEntry((saved.get(24) & 1) != 0);
+
+		GameJournal journal	= new GameJournal(file, gameState);
+		journal.entries		= (saved.limit() - journal.snapshotSize) / ENTRY_SIZE;
+
+		for(long i = 0; i < journal.entries; i++)
+		{
+			replay(gameState, saved, journal.snapshotSize + (int) i*ENTRY_SIZE, file);
+		}
+		gameState.setSolved(gameState.getNumOfEmpty() == 0);
+
+		// Drop a torn entry at the end and carry on appending after the last whole one
+		journal.channel = FileChannel.open(file, StandardOpenOption.WRITE);
+		try
+		{
+			long end = journal.snapshotSize + journal.entries*ENTRY_SIZE;
+			journal.channel.truncate(end);
+			journal.channel.position(end);
+		}
+		catch(IOException e)
+		{
+			journal.channel.close();
+			throw e;
+		}
+
+		gameState.setJournal(journal);
+		return gameState;
+	}
+
+	/**
+	 * Applies one journal entry to a game.
+	 */
+	private static void replay(GameState gameState, ByteBuffer saved, int index, Path file) throws IOException
+	{
+		int type	= saved.get(index);
+		int value	= saved.get(index + 1);
+		int cell	= saved.getShort(index + 2) & 0xFFFF;
+		int dim		= gameState.getDimension();
+
+		switch(type)
+		{
+			case MOVE:
+			case HINT:
+				if(cell >= dim*dim || value < 1 || value > dim || gameState.getBoard().getValue(cell) != Board.EMPTY)
+					throw new IOException(file + " has a corrupt journal entry at byte " + index);
+				gameState.fill(cell, value);
+				if(type == HINT)
+					gameState.setNumOfHints(gameState.getNumOfHints() + 1);
+				break;
+			case MISS:
+				gameState.setNumOfMisses(gameState.getNumOfMisses() + 1);
+				break;
+			case FREE_ENTRY:
+				gameState.setFreeEntry(value != 0);
+				break;
+			default:
+				throw new IOException(file + " has a corrupt journal entry at byte " + index);
+		}
+	}
+
+	/**
+	 * Records a value the player placed.
+	 */
+	void recordMove(int cell, int elem)
+	{
+		append(MOVE, elem, cell);
+	}
+
+	/**
+	 * Records a wrong guess.
+	 */
+	void recordMiss()
+	{
+		append(MISS, 0, 0);
+	}
+
+	/**
+	 * Records a value filled in by a hint.
+	 */
+	void recordHint(int cell, int elem)
+	{
+		append(HINT, elem, cell);
+	}
+
+	/**
+	 * Records switching free entry mode on or off.
+	 */
+	void recordFreeEntry(boolean freeEntry)
+	{
+		append(FREE_ENTRY, freeEntry ? 1 : 0, 0);
+	}
+
+	/**
+	 * Buffers one entry, writing out the buffer first if it is full.
+	 */
+	private void append(byte type, int value, int cell)
+	{
+		if(buffer.remaining() < ENTRY_SIZE)
+		{
+			try
+			{
+				writeEntries();
+			}
+			catch(IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+		buffer.put(type);
+		buffer.put((byte) value);
+		buffer.putShort((short) cell);
+	}
+
+	/**
+	 * Writes the buffered entries to the file, compacting it when the journal has grown
+	 * too long. Called once per player action.
+	 */
+	public void flush() throws IOException
+	{
+		writeEntries();
+		if(entries*ENTRY_SIZE > (long) COMPACT_RATIO*snapshotSize)
+			compact();
+	}
+
+	/**
+	 * Writes the buffered entries to the file.
+	 */
+	private void writeEntries() throws IOException
+	{
+		buffer.flip();
+		entries += buffer.remaining() / ENTRY_SIZE;
+		while(buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Replaces the file with a snapshot of the game as it is now and an empty journal.
+	 * The snapshot is written to a temporary file first, so a crash leaves either the old
+	 * save or the new one.
+	 */
+	public void compact() throws IOException
+	{
+		Board	board		= gameState.getBoard();
+		Board	snapshot	= new Board(board);
+		int		cells		= board.getSize();
+
+		// The record only has room for values that match the answer key; entries made in
+		// free entry mode that do not are carried over as moves
+		ByteBuffer moves = ByteBuffer.allocate(cells*ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		for(int cell = 0; cell < cells; cell++)
+		{
+			int value = board.getValue(cell);
+			if(value != Board.EMPTY && value != board.getSolution(cell))
+			{
+				snapshot.setValue(cell, Board.EMPTY);
+				moves.put(MOVE);
+				moves.put((byte) value);
+				moves.putShort((short) cell);
+			}
+		}
+		moves.flip();
+
+		ByteBuffer out = ByteBuffer.allocate(snapshotSize + moves.remaining()).order(ByteOrder.LITTLE_ENDIAN);
+		out.putInt(0, MAGIC);
+		out.putShort(4, VERSION);
+		out.putShort(6, (short) gameState.getDimension());
+		out.putInt(8, gameState.getMaxMisses());
+		out.putInt(12, gameState.getMaxHints());
+		out.putInt(16, gameState.getNumOfMisses());
+		out.putInt(20, gameState.getNumOfHints());
+		out.put(24, (byte) (gameState.isFreeEntry() ? 1 : 0));
+		PuzzleLibrary.encode(snapshot, out, HEADER_SIZE);
+		out.position(snapshotSize);
+		out.put(moves);
+		out.flip();
+
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try(FileChannel tempChannel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			while(out.hasRemaining())
+			{
+				tempChannel.write(out);
+			}
+			tempChannel.force(true);
+		}
+
+		if(channel != null)
+			channel.close();
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		channel = FileChannel.open(file, StandardOpenOption.WRITE);
+		channel.position(channel.size());
+		entries = moves.limit() / ENTRY_SIZE;
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the buffered entries and closes the file, leaving the game saved.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			writeEntries();
+		}
+		finally
+		{
+			channel.close();
+			gameState.setJournal(null);
+		}
+	}
+
+	/**
+	 * Stops saving the game and deletes the file, once the game is over.
+	 */
+	public void discard() throws IOException
+	{
+		channel.close();
+		gameState.setJournal(null);
+		Files.deleteIfExists(file);
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the file the game is saved to
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * @return the number of entries in the journal, including ones not flushed yet
+	 */
+	public long getEntries() {
+		return entries + buffer.position() / ENTRY_SIZE;
+	}
+}
@@ -0,0 +1,208 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Joshua Boone
+ *
+ * Hosts many games at once over a local TCP socket, one GameSession per connection,
+ * speaking the line protocol of GameSession.
+ *
+ * Every connection gets a thread of its own that blocks on the socket. On a runtime with
+ * virtual threads they are virtual, so thousands of idle players cost little more than
+ * their games; older runtimes fall back to a cached pool of platform threads. All
+ * sessions draw their puzzles from one shared Model, whose pools generate ahead of time.
+ *
+ */
+public class GameServer implements Closeable
+{
+	public static final int		DEFAULT_PORT = 5109;
+
+	private Model				model;
+	private ServerSocket		serverSocket;
+	private ExecutorService		sessions;
+	private Thread				acceptor;
+	private Set<Socket>			connections;
+	private AtomicInteger		sessionCount;
+
+	/**
+	 * Constructor
+	 * Listens on the loopback address and starts accepting connections.
+	 *
+	 * @param port  port to listen on, or 0 for any free port
+	 * @param model source of puzzles for every session
+	 */
+	public GameServer(int port, Model model) throws IOException
+	{
+		this.model		= model;
+		serverSocket	= new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+		sessions		= newPerTaskExecutor("game-session-");
+		connections		= ConcurrentHashMap.newKeySet();
+		sessionCount	= new AtomicInteger();
+
+		acceptor		= new Thread(this::accept, "game-server-accept");
+		acceptor.start();
+	}
+
+	/**
+	 * Usage: GameServer [port] [pool threads]
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		int port	= args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		int threads	= args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+		// Keep more puzzles ready than a single player would need
+		GameServer server = new GameServer(port, new Model(16, 64, threads));
+		System.out.println("Serving sudoku on " + server.getPort() + " with " + (isVirtual() ? "virtual" : "platform") + " threads");
+		server.acceptor.join();
+	}
+
+	/**
+	 * Returns an executor that runs every task on a new virtual thread, or on a cached
+	 * platform thread when the runtime has no virtual threads.
+	 *
+	 * @param prefix name of the platform threads
+	 */
+	static ExecutorService newPerTaskExecutor(String prefix)
+	{
+		try
+		{
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch(ReflectiveOperationException e)
+		{
+			AtomicInteger	count	= new AtomicInteger();
+			ThreadFactory	factory	= task -> {
+				Thread thread = new Thread(task, prefix + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			};
+			return Executors.newCachedThreadPool(factory);
+		}
+	}
+
+	/**
+	 * @return whether newPerTaskExecutor runs tasks on virtual threads
+	 */
+	static boolean isVirtual()
+	{
+		try
+		{
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		}
+		catch(NoSuchMethodException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Accepts connections until the server is closed.
+	 */
+	private void accept()
+	{
+		while(!serverSocket.isClosed())
+		{
+			try
+			{
+				Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+				connections.add(socket);
+				sessions.execute(() -> serve(socket));
+			}
+			catch(IOException e)
+			{
+				// Closed while waiting for a connection
+			}
+		}
+	}
+
+	/**
+	 * Runs one session until the player quits or disconnects.
+	 */
+	private void serve(Socket socket)
+	{
+		GameSession session = new GameSession(model);
+		sessionCount.incrementAndGet();
+
+		try(Socket connection = socket;
+			BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.US_ASCII));
+			BufferedWriter out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.US_ASCII)))
+		{
+			String line;
+			while((line = in.readLine()) != null)
+			{
+				String answer = session.handle(line);
+				out.write(answer);
+				out.write('\n');
+				out.flush();
+
+				if(answer.equals("BYE"))
+					break;
+			}
+		}
+		catch(SocketException e)
+		{
+			// The player went away
+		}
+		catch(IOException e)
+		{
+			System.err.println("Session failed: " + e.getMessage());
+		}
+		finally
+		{
+			connections.remove(socket);
+			sessionCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Stops accepting connections, drops every open one and stops the puzzle pools.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		serverSocket.close();
+		for(Socket socket : connections)
+		{
+			socket.close();
+		}
+		sessions.shutdownNow();
+		model.shutdown();
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the port the server listens on
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return the number of sessions connected right now
+	 */
+	public int getSessionCount() {
+		return sessionCount.get();
+	}
+}
@@ -0,0 +1,225 @@
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * @author Joshua Boone
+ *
+ * One player's game without a terminal: takes the commands of the interactive game as
+ * lines of text and answers each with one line.
+ *
+ *     NEW [dimension misses hints]   OK <dimension> <empty cells>
+ *     <value>                        OK SELECTED <value>
+ *     <row> <col>                    OK HIT|MISS <empty cells> <misses left> <hints left> [SOLVED|FAILED]
+ *     HINT                           OK HINT <empty cells> <misses left> <hints left> [SOLVED]
+ *     BOARD                          OK <cell values in row-major order, 0 for empty>
+ *     QUIT                           BYE
+ *
+ * Anything that cannot be carried out is answered with ERR and a reason. Rows and columns
+ * count from 1, as on screen. A NEW whose puzzle is not generated within
+ * NEW_GAME_BUDGET_SECONDS is answered with ERR and leaves the previous game in place.
+ *
+ * Each session owns its game, so sessions never share mutable state; the Model is only
+ * used as a common source of puzzles. A session is used by one thread at a time.
+ *
+ */
+public class GameSession
+{
+	// How long NEW may generate before it gives up
+	public static final int	NEW_GAME_BUDGET_SECONDS = 5;
+
+	private Model		model;
+	private GameState	gameState;
+	private int			selectedElem = 1;
+	private boolean		over;
+
+	/**
+	 * Constructor
+	 *
+	 * @param model source of puzzles, shared between sessions
+	 */
+	public GameSession(Model model)
+	{
+		this.model = model;
+	}
+
+	/**
+	 * Carries out one command.
+	 *
+	 * @param line the command
+	 * @return the answer, without a line terminator
+	 */
+	public String handle(String line)
+	{
+		String[] words = line.trim().split("\\s+");
+
+		try
+		{
+			if(words[0].equalsIgnoreCase("new"))
+				return newGame(words);
+			if(words[0].equalsIgnoreCase("quit"))
+				return "BYE";
+			if(words[0].equalsIgnoreCase("board"))
+				return board();
+			if(words[0].equalsIgnoreCase("hint"))
+				return hint();
+			if(words.length == 2 && Character.isDigit(words[0].charAt(0)))
+				return move(Integer.parseInt(words[0]), Integer.parseInt(words[1]));
+			if(words.length == 1 && !words[0].isEmpty() && Character.isDigit(words[0].charAt(0)))
+				return select(Integer.parseInt(words[0]));
+		}
+		catch(NumberFormatException e)
+		{
+			return "ERR not a number: " + line.trim();
+		}
+		return "ERR unknown command: " + line.trim();
+	}
+
+	/**
+	 * Starts a new game, with the standard size and "unlimited" misses and hints by default.
+	 * Generation runs against a deadline, so one NEW cannot tie up the generator for long.
+	 */
+	private String newGame(String[] words)
+	{
+		int dim		= 9;
+		int miss	= 1000;
+		int hint	= 1000;
+		if(words.length == 4)
+		{
+			dim		= Integer.parseInt(words[1]);
+			miss	= Integer.parseInt(words[2]);
+			hint	= Integer.parseInt(words[3]);
+		}
+		else if(words.length != 1)
+		{
+			return "ERR usage: NEW [dimension misses hints]";
+		}
+
+		CancellationToken token = new CancellationToken();
+		try
+		{
+			gameState = model.newGameAsync(dim, miss, hint, Instant.now().plusSeconds(NEW_GAME_BUDGET_SECONDS), token).get();
+		}
+		catch(ExecutionException e)
+		{
+			return "ERR " + e.getCause().getMessage();
+		}
+		catch(InterruptedException e)
+		{
+			token.cancel();
+			Thread.currentThread().interrupt();
+			return "ERR interrupted";
+		}
+
+		over = false;
+		return "OK " + gameState.getDimension() + " " + gameState.getNumOfEmpty();
+	}
+
+	/**
+	 * Selects the value to place.
+	 */
+	private String select(int elem)
+	{
+		if(gameState != null && (elem < 1 || elem > gameState.getDimension()))
+			return "ERR value out of range: " + elem;
+
+		selectedElem = elem;
+		return "OK SELECTED " + elem;
+	}
+
+	/**
+	 * Places the selected value.
+	 */
+	private String move(int row, int col)
+	{
+		String error = checkPlaying();
+		if(error != null)
+			return error;
+
+		int dim = gameState.getDimension();
+		if(row < 1 || row > dim || col < 1 || col > dim)
+			return "ERR cell out of range: " + row + " " + col;
+		if(selectedElem > dim)
+			return "ERR value out of range: " + selectedElem;
+
+		boolean hit = gameState.checkInput(row - 1, col - 1, selectedElem);
+		return status(hit ? "HIT" : "MISS");
+	}
+
+	/**
+	 * Fills a random empty cell.
+	 */
+	private String hint()
+	{
+		String error = checkPlaying();
+		if(error != null)
+			return error;
+
+		if(gameState.getMaxHints() - gameState.getNumOfHints() < 1)
+			return "ERR no hints left";
+		if(!gameState.useHint())
+			return "ERR no cell left that a hint can fill";
+		return status("HINT");
+	}
+
+	/**
+	 * Lists every cell value.
+	 */
+	private String board()
+	{
+		if(gameState == null)
+			return "ERR no game, start one with NEW";
+
+		Board			board	= gameState.getBoard();
+		StringBuilder	answer	= new StringBuilder("OK ");
+		for(int cell = 0; cell < board.getSize(); cell++)
+		{
+			if(cell > 0)
+				answer.append(',');
+			answer.append(board.isEmpty(cell / board.getDimension(), cell % board.getDimension()) ? 0 : board.getValue(cell));
+		}
+		return answer.toString();
+	}
+
+	/**
+	 * Returns why no move can be made, or null if one can.
+	 */
+	private String checkPlaying()
+	{
+		if(gameState == null)
+			return "ERR no game, start one with NEW";
+		if(over)
+			return "ERR game over, start another with NEW";
+		return null;
+	}
+
+	/**
+	 * Describes the game after a move or hint, and ends it once it is solved or failed.
+	 */
+	private String status(String result)
+	{
+		int missesLeft = gameState.getMaxMisses() - gameState.getNumOfMisses();
+
+		String answer = "OK " + result + " " + gameState.getNumOfEmpty() + " " + missesLeft + " " + (gameState.getMaxHints() - gameState.getNumOfHints());
+		if(gameState.isSolved())
+		{
+			over = true;
+			return answer + " SOLVED";
+		}
+		if(missesLeft < 1)
+		{
+			over = true;
+			return answer + " FAILED";
+		}
+		return answer;
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the session's game, or null before the first NEW
+	 */
+	public GameState getGameState() {
+		return gameState;
+	}
+}
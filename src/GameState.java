@@ -1,4 +1,3 @@
-import java.util.ArrayList;
 import java.util.Random;
 
 /**
@@ -7,14 +6,23 @@ import java.util.Random;
  * Data type that represents the sudoku puzzle.
  * Contains methods used to generate and change the state of the puzzle.
  * 
- * Uses constraint satisfaction and backtracking to generate the puzzle, and 
- * constraint propagation arc consistency to catch errors and check for unique solutions.
+ * The puzzle itself is generated by PuzzleGenerator, which uses constraint satisfaction
+ * and backtracking to generate the puzzle, and constraint propagation arc consistency to
+ * catch errors and check for unique solutions.
  * Once a unique solution is guaranteed, an answer key is generated for efficiency. 
+ * 
+ * The cells and the answer key are held in a flat Board rather than one object per cell.
+ * Occupancy masks for every row, column and region and a count of empty cells are kept
+ * up to date on every placement, so checking a move and detecting the goal state take
+ * constant time. The empty cells are kept in an indexed set, so a hint can fill a
+ * random one without scanning the board.
+ * 
+ * While a GameJournal is attached, every move, miss, hint and change of entry mode is
+ * recorded in it.
  */
 public class GameState 
 {
-	private Cell[][]			gameState;
-	private int[][]				solution;
+	private Board				board;
 	
 	private int					dimension;
 	
@@ -23,50 +31,34 @@ public class GameState
 	private int					numOfMisses;
 	private int					numOfHints;
 	
-	private ArrayList<Cell>		elemOrder;
+	private int[]				elemOrder;
 	private boolean				solved;
+	private UniquenessCheck		uniquenessCheck;
 	
 	private int 				sqrt;
-	private Random 				rand;
-	private Cell				tempCell;
-	private ArrayList<Integer>	tempIntList;
 	
-private View view = new View();
+	private Topology			topology;
+	private long[]				rowUsed;
+	private long[]				colUsed;
+	private long[]				boxUsed;
+	private CellSet				emptyCells;
+	private boolean				freeEntry;
+	private Random				rand;
+	private GameJournal			journal;
 	
 	/**
 	 * Constructor
 	 */
 	public GameState()
 	{
-		rand		= new Random();
-		
-		dimension	= 9;    // Size defaults to standard sudoku puzzle size
-		maxMisses	= 1000; // "Unlimited" misses
-		maxHints	= 1000; // "Unlimited" hints
-		numOfMisses	= 0;
-		numOfHints	= 0;
-		elemOrder	= new ArrayList<Cell>();
-		solved		= false;
-		
-		gameState 	= new Cell[dimension][dimension];
-		solution	= new int[dimension][dimension];
-		
-		sqrt		= (int) Math.sqrt(dimension);
-		
-		// Fill all cells with empty cells.
-		for(int row = 0; row < gameState.length; row++)
-		{
-			for(int col = 0; col < gameState[row].length; col++)
-			{
-				gameState[row][col] = new Cell();
-			}
-		}
-		
-		generatePuzzle();
+		// Size defaults to standard sudoku puzzle size, with "unlimited" misses and hints
+		this(9, 1000, 1000);
 	}
 	
 	/**
 	 * Constructor
+	 * Puzzles of dimension 16 and up use the exact cover uniqueness check and are
+	 * raced on every available core.
 	 * 
 	 * @param dim dimension of the puzzle
 	 * @param mM max number of misses
@@ -74,38 +66,122 @@ private View view = new View();
 	 */
 	public GameState(int dim, int mM, int mH)
 	{
-		rand = new Random();
+		this(dim, mM, mH, PuzzleGenerator.defaultCheck(checkDimension(dim)), PuzzleGenerator.defaultSearches(checkDimension(dim)));
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param dim dimension of the puzzle
+	 * @param mM max number of misses
+	 * @param mH max number of hints
+	 * @param check how the generator decides that the puzzle is unique
+	 */
+	public GameState(int dim, int mM, int mH, UniquenessCheck check)
+	{
+		this(dim, mM, mH, check, 1);
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param dim dimension of the puzzle
+	 * @param mM max number of misses
+	 * @param mH max number of hints
+	 * @param check how the generator decides that the puzzle is unique
+	 * @param searches number of generator searches to race, each with its own seed
+	 */
+	public GameState(int dim, int mM, int mH, UniquenessCheck check, int searches)
+	{
+		this(dim, mM, mH, check, searches, null);
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param dim dimension of the puzzle
+	 * @param mM max number of misses
+	 * @param mH max number of hints
+	 * @param check how the generator decides that the puzzle is unique
+	 * @param searches number of generator searches to race, each with its own seed
+	 * @param listener receives generation progress, or null
+	 * @throws GenerationException if generation hits a dead end
+	 */
+	public GameState(int dim, int mM, int mH, UniquenessCheck check, int searches, ProgressListener listener)
+	{
+		this(dim, mM, mH, check, GenerationStrategy.ADD_GIVENS, searches, listener);
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param dim dimension of the puzzle
+	 * @param mM max number of misses
+	 * @param mH max number of hints
+	 * @param check how the generator decides that the puzzle is unique
+	 * @param strategy how the generator builds the puzzle
+	 * @param searches number of generator searches to race, each with its own seed
+	 * @param listener receives generation progress, or null
+	 * @throws GenerationException if generation hits a dead end
+	 */
+	public GameState(int dim, int mM, int mH, UniquenessCheck check, GenerationStrategy strategy, int searches, ProgressListener listener)
+	{
+		dimension		= checkDimension(dim);
+		sqrt			= (int) Math.sqrt(dimension);
+		maxMisses		= mM;
+		maxHints		= mH;
+		numOfMisses		= 0;
+		numOfHints		= 0;
+		solved			= false;
+		uniquenessCheck	= check;
 		
-		// Check for proper dimension
-		sqrt = (int) Math.sqrt(dim);
-		if (sqrt*sqrt == dim)
-			dimension	= dim;
-		else
-		{
-			dimension	= 9;
-			sqrt		= 3;
-		}
+		long	start	= System.nanoTime();
+		Puzzle	puzzle	= generatePuzzle(strategy, searches, listener);
+		if(puzzle == null)
+			throw new GenerationException(GenerationException.Reason.DEAD_END, dimension, System.nanoTime() - start);
+		
+		board			= puzzle.getBoard();
+		elemOrder		= puzzle.getElemOrder();
 		
+		countOccupancy();
+	}
+	
+	/**
+	 * Constructor
+	 * Starts a game with a puzzle that has already been generated.
+	 * 
+	 * @param puzzle the puzzle to play
+	 * @param mM max number of misses
+	 * @param mH max number of hints
+	 */
+	public GameState(Puzzle puzzle, int mM, int mH)
+	{
+		dimension		= puzzle.getDimension();
+		sqrt			= puzzle.getSqrt();
 		maxMisses		= mM;
 		maxHints		= mH;
 		numOfMisses		= 0;
 		numOfHints		= 0;
-		elemOrder		= new ArrayList<Cell>();
 		solved			= false;
+		uniquenessCheck	= null;
 		
-		gameState		= new Cell[dimension][dimension];
-		solution		= new int[dimension][dimension];
+		board			= puzzle.getBoard();
+		elemOrder		= puzzle.getElemOrder();
 		
-		// Fill all cells with empty cells.
-		for(int row = 0; row < gameState.length; row++)
-		{
-			for(int col = 0; col < gameState[row].length; col++)
-			{
-				gameState[row][col] = new Cell();
-			}
-		}
-		
-		generatePuzzle();
+		countOccupancy();
+	}
+	
+	/**
+	 * Returns the dimension if it is a usable perfect square, otherwise the standard size of 9.
+	 * 
+	 * @param dim requested dimension
+	 */
+	public static int checkDimension(int dim)
+	{
+		int root = (int) Math.sqrt(dim);
+		if (dim > 0 && root*root == dim && dim <= CandidateSet.MAX_VALUE)
+			return dim;
+		return 9;
 	}
 	
 	
@@ -114,39 +190,77 @@ private View view = new View();
 	 * and if so, inputs the value.
 	 * Otherwise, counts as a miss.
 	 * 
+	 * In free entry mode the value only has to be allowed by the rules: it may not
+	 * already be in the cell's row, column or region.
+	 * 
 	 * @param row  puzzle row
 	 * @param col  puzzle column
 	 * @param elem value to set
 	 */
 	public boolean checkInput(int row, int col, int elem)
 	{
-		if(gameState[row][col].getElem() == -1 && solution[row][col] == elem)
+		boolean valid;
+		if(freeEntry)
+			valid = board.isEmpty(row, col) && !hasConflict(row, col, elem);
+		else
+			valid = board.isEmpty(row, col) && board.getSolution(row, col) == elem;
+		
+		if(valid)
 		{
-			gameState[row][col].setElem(elem);
+			place(row*dimension + col, elem);
 			solved = isGoalState();
+			if(journal != null)
+				journal.recordMove(row*dimension + col, elem);
 			return true;
 		}
 		numOfMisses++;
+		if(journal != null)
+			journal.recordMiss();
 		return false;
 	}
 	
 	/**
-	 * Fills in a cell for the user.
+	 * Checks whether a value is out of range or already used in the cell's row,
+	 * column or region.
+	 * 
+	 * @param row  puzzle row
+	 * @param col  puzzle column
+	 * @param elem value to check
+	 */
+	public boolean hasConflict(int row, int col, int elem)
+	{
+		if(elem < 1 || elem > dimension)
+			return true;
+		
+		int cell = row*dimension + col;
+		return ((rowUsed[row] | colUsed[col] | boxUsed[topology.getBox(cell)]) & CandidateSet.maskOf(elem)) != 0;
+	}
+	
+	/**
+	 * Fills in a random empty cell for the user.
 	 * 
 	 */
 	public boolean useHint()
 	{
-		for(int row = 0; row < gameState.length; row++)
+		if(emptyCells.isEmpty())
+			return false;
+		
+		// In free entry mode, earlier entries may have used the answer of the picked cell
+		// elsewhere, so look on from there for a cell the answer still fits
+		int start = rand.nextInt(emptyCells.size());
+		for(int i = 0; i < emptyCells.size(); i++)
 		{
-			for(int col = 0; col < gameState[row].length; col++)
+			int slot	= (start + i) % emptyCells.size();
+			int cell	= emptyCells.get(slot);
+			int elem	= board.getSolution(cell);
+			if(!hasConflict(cell / dimension, cell % dimension, elem))
 			{
-				if(gameState[row][col].getElem() == -1)
-				{
-					gameState[row][col].setElem(solution[row][col]);
-					numOfHints++;
-					solved = isGoalState();
-					return true;
-				}
+				place(cell, elem);
+				numOfHints++;
+				solved = isGoalState();
+				if(journal != null)
+					journal.recordHint(cell, elem);
+				return true;
 			}
 		}
 		
@@ -155,387 +269,97 @@ private View view = new View();
 	
 	/**
 	 * Checks if the puzzle has been completed.
+	 * Every value on the board was accepted without breaking a constraint, so a full
+	 * board is a solved board.
 	 */
 	private boolean isGoalState()
 	{
-		for(int row = 0; row < gameState.length; row++)
-		{
-			for(int col = 0; col < gameState[row].length; col++)
-			{
-				if(gameState[row][col].getElem() != solution[row][col])
-					return false;
-			}
-		}
-		
-		return true;
+		return emptyCells.isEmpty();
 	}
 	
 	/**
-	 * Generates the puzzle randomly.
-	 * Uses constraint satisfaction and backtracking to generate the puzzle, and 
-	 * constraint propagation arc consistency to catch errors and check for unique solutions.
-	 * Once a unique solution is guaranteed, an answer key is generated for efficiency.
-	 */
-	private void generatePuzzle()
-	{	
-		int tempRow;
-		int tempCol;
-		
-		// Start generation at random cell
-		tempRow  = rand.nextInt(dimension);
-		tempCol  = rand.nextInt(dimension);
-		tempCell = gameState[tempRow][tempCol];
-		elemOrder.add(tempCell);
-		
-		tempIntList = getUsableDomain(tempRow, tempCol);
-		tempCell.setElem(tempIntList.remove(rand.nextInt(tempIntList.size())));
-		tempCell.setUnusedDomain(tempIntList);
-		
-		// Fill in given cells until puzzle has a unique solution
-		int solvable = isSolvable();
-		while(true)
-		{
-			// Puzzle is unsolvable
-			if(solvable == -1)
-			{
-				// If current cell's usable domain options are exhausted, backtrack
-				if(tempIntList.isEmpty())
-				{
-					elemOrder.remove(elemOrder.size()-1).setElem(-1);
-					
-					if(elemOrder.isEmpty())
-					{
-						System.out.println("ERROR: No more backtracking available.");
-						System.exit(1);
-					}
-					
-					tempCell = elemOrder.get(elemOrder.size()-1);
-					tempIntList = tempCell.getUnusedDomain();
-					if(tempIntList.isEmpty())
-					{
-						solvable = -1;
-						continue;
-					}
-					tempCell.setElem(tempIntList.remove(rand.nextInt(tempIntList.size())));
-					
-					// For demo purposes.  1-16 domain takes too long to generate, but this will at least let the board be seen in progress.
-					if(dimension >= 16)
-						view.printGameScreen(this);
-	
-					solvable = isSolvable();
-					continue;
-				}
-				// Otherwise, try another usable domain value
-				else
-				{
-					tempCell.setElem(tempIntList.remove(rand.nextInt(tempIntList.size())));
-					solvable = isSolvable();
-					continue;
-				}
-			}
-			// Puzzle can be solved, but does not have a unique solution
-			if(solvable == 0)
-			{
-				while(gameState[tempRow][tempCol].getElem() != -1 || gameState[tempRow][tempCol].getUnusedDomain().size() == 1 || getUsableDomain(tempRow, tempCol).isEmpty())
-				{
-					tempRow  = rand.nextInt(dimension);
-					tempCol  = rand.nextInt(dimension);
-				}
-				
-				tempCell = gameState[tempRow][tempCol];
-				elemOrder.add(tempCell);
-				
-				tempIntList = getUsableDomain(tempRow, tempCol);
-				
-				tempCell.setElem(tempIntList.remove(rand.nextInt(tempIntList.size())));
-								
-				solvable = isSolvable();
-				continue;
-			}
-			// Puzzle has a unique solution
-			if(solvable == 1)
-			{
-				break;
-			}
-			else
-			{
-				System.out.println("ERROR: Unexpected value.");
-				System.exit(1);
-			}
-		}
-		
+	 * Fills a cell without checking it, as when a saved game is replayed.
+	 * 
+	 * @param cell index of the cell (row * dimension + col)
+	 * @param elem value to set
+	 */
+	void fill(int cell, int elem)
+	{
+		place(cell, elem);
+		solved = isGoalState();
 	}
 	
 	/**
-	 * Checks for errors and a unique solution.
-	 * Uses constraint propagation arc consistency to catch errors and check for unique solutions.
-	 * Once a unique solution is guaranteed, an answer key is generated for efficiency.
+	 * Sets a value and records it in the occupancy masks.
+	 * 
+	 * @param cell index of the cell (row * dimension + col)
+	 * @param elem value to set
 	 */
-	private int isSolvable()
+	private void place(int cell, int elem)
 	{
-		String				tempString;
-		String[]			rowColStrings;
-		int					rowFromString;
-		int					colFromString;
-		ArrayList<String>	arcQueue	= new ArrayList<String>();
-		
-		// Set all initial available domains
-		for(int row = 0; row < gameState.length; row++)
-		{
-			for(int col = 0; col < gameState[row].length; col++)
-			{
-				if(gameState[row][col].getElem() == -1)
-					gameState[row][col].setUnusedDomain(getUsableDomain(row, col));
-			}
-		}
+		long mask = CandidateSet.maskOf(elem);
 		
-		// Add all initial arcs
-		for(int row = 0; row < dimension; row++)
-		{
-			for(int col = 0; col < dimension; col++)
-			{
-				//if(gameState[row][col].getElem() != -1)
-					arcQueue.add(row + "|" + col);
-			}
-		}
-
-		
-		// Check arcs
-		while(true)
-		{
-			// Check for complete generation
-			if(arcQueue.isEmpty())
-			{
-				int retValue = 1;
-				for(int row = 0; row < gameState.length; row++)
-				{
-					for(int col = 0; col < gameState[row].length; col++)
-					{
-						if(gameState[row][col].getElem() == -1)
-						{
-							if(gameState[row][col].getUnusedDomain().isEmpty())
-								return -1;
-							if(gameState[row][col].getUnusedDomain().size() > 1)
-							{
-								retValue = 0;
-							}
-							else if(gameState[row][col].getUnusedDomain().size() < 1)
-							{
-								return -1;
-							}
-							
-							solution[row][col] = gameState[row][col].getUnusedDomain().get(0);
-						}
-						else
-						{
-							solution[row][col] = gameState[row][col].getElem();
-						}
-					}
-				}
-				return retValue;
-			}
-			
-			// Check arcs
-			if(!arcQueue.isEmpty())
-			{
-				tempString		= arcQueue.remove(0);
-				rowColStrings	= tempString.split("\\|");
-				rowFromString	= Integer.parseInt(rowColStrings[0]);
-				colFromString	= Integer.parseInt(rowColStrings[1]);
-				
-				for(int i = 0; i < dimension; i++)
-				{
-					// If there is a conflict, backtrack
-					if(gameState[rowFromString][colFromString].getElem() == -1)
-					{
-						if((i != colFromString  && gameState[rowFromString][colFromString].getUnusedDomain().size() == 1 && gameState[rowFromString][colFromString].getUnusedDomain().get(0) == gameState[rowFromString][i].getElem()) ||
-						   (i != rowFromString  && gameState[rowFromString][colFromString].getUnusedDomain().size() == 1 && gameState[rowFromString][colFromString].getUnusedDomain().get(0) == gameState[i][colFromString].getElem()) ||
-						   ((rowFromString != (rowFromString/sqrt*sqrt) + (i%sqrt) && colFromString != (colFromString/sqrt*sqrt) + (i/sqrt))  && gameState[rowFromString][colFromString].getUnusedDomain().size() == 1 && gameState[rowFromString][colFromString].getUnusedDomain().get(0) == gameState[(rowFromString/sqrt*sqrt) + (i%sqrt)][(colFromString/sqrt*sqrt) + (i/sqrt)].getElem()) ||
-						   (i != colFromString  && gameState[rowFromString][colFromString].getUnusedDomain().size() == 1 && gameState[rowFromString][i].getUnusedDomain().size() == 1 && gameState[rowFromString][colFromString].getUnusedDomain().get(0) == gameState[rowFromString][i].getUnusedDomain().get(0).intValue()) ||
-						   (i != rowFromString  && gameState[rowFromString][colFromString].getUnusedDomain().size() == 1 && gameState[i][colFromString].getUnusedDomain().size() == 1 && gameState[rowFromString][colFromString].getUnusedDomain().get(0) == gameState[i][colFromString].getUnusedDomain().get(0).intValue()) ||
-						   ((rowFromString != (rowFromString/sqrt*sqrt) + (i%sqrt) && colFromString != (colFromString/sqrt*sqrt) + (i/sqrt))  && gameState[rowFromString][colFromString].getUnusedDomain().size() == 1 && gameState[(rowFromString/sqrt*sqrt) + (i%sqrt)][(colFromString/sqrt*sqrt) + (i/sqrt)].getUnusedDomain().size() == 1 && gameState[rowFromString][colFromString].getUnusedDomain().get(0) == gameState[(rowFromString/sqrt*sqrt) + (i%sqrt)][(colFromString/sqrt*sqrt) + (i/sqrt)].getUnusedDomain().get(0).intValue()))
-						{
-							return -1;
-						}
-					}
-					else
-					{
-						if((i != colFromString  && gameState[rowFromString][i].getUnusedDomain().size() == 1 && gameState[rowFromString][i].getUnusedDomain().get(0) == gameState[rowFromString][colFromString].getElem()) ||
-						   (i != rowFromString  && gameState[i][colFromString].getUnusedDomain().size() == 1 && gameState[i][colFromString].getUnusedDomain().get(0) == gameState[rowFromString][colFromString].getElem()) ||
-						   ((rowFromString != (rowFromString/sqrt*sqrt) + (i%sqrt) && colFromString != (colFromString/sqrt*sqrt) + (i/sqrt))  && gameState[(rowFromString/sqrt*sqrt) + (i%sqrt)][(colFromString/sqrt*sqrt) + (i/sqrt)].getUnusedDomain().size() == 1 && gameState[(rowFromString/sqrt*sqrt) + (i%sqrt)][(colFromString/sqrt*sqrt) + (i/sqrt)].getUnusedDomain().get(0) == gameState[rowFromString][colFromString].getElem()))
-						{
-							return -1;
-						}
-						continue;
-					}
-					
-					// Check row arcs
-					// Make sure to not check against itself, and that value has not been assigned
-					if(i != colFromString && gameState[rowFromString][i].getElem() != -1)
-					{
-						// Check row arc from row element to selected element
-						if(gameState[rowFromString][colFromString].getUnusedDomain().size() == 1)
-						{
-							if(gameState[rowFromString][i].getUnusedDomain().remove((Integer)gameState[rowFromString][colFromString].getUnusedDomain().get(0)) && gameState[rowFromString][i].getUnusedDomain().size() == 1 && !arcQueue.contains(rowFromString + "|" + i))
-							{
-								arcQueue.add(rowFromString + "|" + i);
-							}
-						}
-						// Check row arc from selected element to row element
-						if(gameState[rowFromString][i].getUnusedDomain().size() == 1)
-						{
-							if(gameState[rowFromString][colFromString].getUnusedDomain().remove((Integer)gameState[rowFromString][i].getUnusedDomain().get(0)) && gameState[rowFromString][colFromString].getUnusedDomain().size() == 1 && !arcQueue.contains(rowFromString + "|" + colFromString))
-							{
-								arcQueue.add(rowFromString + "|" + colFromString);
-							}
-						}
-					}
-					// Check column arcs
-					// Make sure to not check against itself, and that value has not been assigned
-					if(i != rowFromString && gameState[i][colFromString].getElem() != -1)
-					{
-						// Check column arc from column element to selected element
-						if(gameState[rowFromString][colFromString].getUnusedDomain().size() == 1)
-						{
-							if(gameState[i][colFromString].getUnusedDomain().remove((Integer)gameState[rowFromString][colFromString].getUnusedDomain().get(0)) && gameState[i][colFromString].getUnusedDomain().size() == 1 && !arcQueue.contains(i + "|" + colFromString))
-							{
-								arcQueue.add(i + "|" + colFromString);
-							}
-						}
-						// Check column arc from selected element to column element
-						if(gameState[i][colFromString].getUnusedDomain().size() == 1)
-						{
-							if (gameState[rowFromString][colFromString].getUnusedDomain().remove((Integer)gameState[i][colFromString].getUnusedDomain().get(0)) && gameState[rowFromString][colFromString].getUnusedDomain().size() == 1 && !arcQueue.contains(rowFromString + "|" + colFromString))
-							{
-								arcQueue.add(rowFromString + "|" + colFromString);
-							}
-						}
-					}
-					// Check region arcs
-					// Make sure to not check against itself, and that value has not been assigned
-					if (!((rowFromString/sqrt*sqrt) + (i%sqrt) == rowFromString && (colFromString/sqrt*sqrt) + (i/sqrt) == colFromString) && 
-						gameState[(rowFromString/sqrt*sqrt) + (i%sqrt)][(colFromString/sqrt*sqrt) + (i/sqrt)].getElem() != -1)
-					{
-						// Check region arc from region element to selected element
-						if(gameState[rowFromString][colFromString].getUnusedDomain().size() == 1)
-						{
-							if(gameState[(rowFromString/sqrt*sqrt) + (i%sqrt)][(colFromString/sqrt*sqrt) + (i/sqrt)].getUnusedDomain().remove((Integer)gameState[rowFromString][colFromString].getUnusedDomain().get(0)) && gameState[(rowFromString/sqrt*sqrt) + (i%sqrt)][(colFromString/sqrt*sqrt) + (i/sqrt)].getUnusedDomain().size() == 1 && !arcQueue.contains(((rowFromString/sqrt*sqrt) + (i%sqrt)) + "|" + ((colFromString/sqrt*sqrt) + (i/sqrt))))
-							{
-								arcQueue.add(((rowFromString/sqrt*sqrt) + (i%sqrt)) + "|" + ((colFromString/sqrt*sqrt) + (i/sqrt)));
-							}
-						}
-						// Check region arc from selected element to region element
-						if(gameState[(rowFromString/sqrt*sqrt) + (i%sqrt)][(colFromString/sqrt*sqrt) + (i/sqrt)].getUnusedDomain().size() == 1)
-						{
-							if (gameState[rowFromString][colFromString].getUnusedDomain().remove((Integer)gameState[(rowFromString/sqrt*sqrt) + (i%sqrt)][(colFromString/sqrt*sqrt) + (i/sqrt)].getUnusedDomain().get(0)) && gameState[rowFromString][colFromString].getUnusedDomain().size() == 1 && !arcQueue.contains(rowFromString + "|" + colFromString))
-							{
-								arcQueue.add(rowFromString + "|" + colFromString);
-							}
-						}
-					}
-				}
-			}
-		}
+		board.setValue(cell, elem);
+		rowUsed[topology.getRow(cell)]	|= mask;
+		colUsed[topology.getCol(cell)]	|= mask;
+		boxUsed[topology.getBox(cell)]	|= mask;
+		emptyCells.remove(cell);
 	}
 	
 	/**
-	 * Returns a list of available domain values for the given cell based on its constraints.
+	 * Builds the occupancy masks and the set of empty cells from the board.
 	 */
-	private ArrayList<Integer> getUsableDomain(int row, int col)
+	private void countOccupancy()
 	{
-		ArrayList<Integer>	usableDomain	= new ArrayList<Integer>();
-		
-		// Fill domain
-		for(int i = 1; i <= dimension; i++)
-		{
-			usableDomain.add(i);
-		}
+		topology	= Topology.of(dimension);
+		rowUsed		= new long[dimension];
+		colUsed		= new long[dimension];
+		boxUsed		= new long[dimension];
+		emptyCells	= new CellSet(board.getSize());
+		rand		= new Random();
 		
-		// Remove constraints from domain
-		// Remove row and col constraints
-		for(int i = 0; i < dimension; i++)
+		for(int cell = 0; cell < board.getSize(); cell++)
 		{
-			usableDomain.remove((Integer)gameState[row][i].getElem());
-			usableDomain.remove((Integer)gameState[i][col].getElem());
+			emptyCells.add(cell);
 		}
-		// Remove region constraints
-		for(int ir = (row/sqrt) * sqrt; ir < ((row/sqrt) + 1) * sqrt; ir++)
+		for(int cell = 0; cell < board.getSize(); cell++)
 		{
-			for(int ic = (col/sqrt) * sqrt; ic < ((col/sqrt) + 1) * sqrt; ic++)
-			{
-				usableDomain.remove((Integer)gameState[ir][ic].getElem());
-			}
+			if(board.getValue(cell) != Board.EMPTY)
+				place(cell, board.getValue(cell));
 		}
-		
-		return usableDomain;
 	}
 	
 	/**
-	 * Originally used minimum remaining values, but switched to random to generate more interesting puzzles.
+	 * Generates the puzzle randomly.
+	 * With more than one search, the searches run in parallel with different seeds
+	 * and the first unique puzzle wins.
+	 * 
+	 * @param strategy how to build the puzzle
+	 * @param searches number of searches to race
+	 * @param listener receives generation progress, or null
+	 * @return the puzzle, or null if generation hit a dead end
 	 */
-	private Cell getMostConstrained()
+	private Puzzle generatePuzzle(GenerationStrategy strategy, int searches, ProgressListener listener)
 	{
-		Cell				tempCellLoc;
-		ArrayList<Integer>	tempIntListLoc;
-		ArrayList<Cell>		mostConstrained = new ArrayList<Cell>();
-		
-		for(int row = 0; row < gameState.length; row++)
-		{
-			for(int col = 0; col < gameState[row].length; col++)
-			{
-				if(gameState[row][col].getElem() == -1)
-				{
-					tempCellLoc = gameState[row][col];
-					tempIntListLoc = getUsableDomain(row, col);
-					
-					if(mostConstrained.isEmpty() || mostConstrained.get(0).getUnusedDomain().size() == tempIntListLoc.size())
-					{
-						tempCellLoc.setUnusedDomain(tempIntListLoc);
-						mostConstrained.add(tempCellLoc);
-					}
-					else if(mostConstrained.get(0).getUnusedDomain().size() > tempIntListLoc.size())
-					{
-						mostConstrained.clear();
-						tempCellLoc.setUnusedDomain(tempIntListLoc);
-						mostConstrained.add(tempCellLoc);
-					}
-				}
-			}
-		}
-		
-		tempCellLoc = mostConstrained.get(rand.nextInt(mostConstrained.size()));
-		return tempCellLoc;
+		return PuzzleGenerator.generate(dimension, uniquenessCheck, strategy, searches, listener);
 	}
 	
 
 	//----------- Getters and Setters -----------\\
 	
 	/**
-	 * @return the gameState
-	 */
-	public Cell[][] getGameState() {
-		return gameState;
-	}
-
-	/**
-	 * @param gameState the gameState to set
+	 * @return the board
 	 */
-	public void setGameState(Cell[][] gameState) {
-		this.gameState = gameState;
+	public Board getBoard() {
+		return board;
 	}
 
 	/**
-	 * @return the solution
+	 * @param board the board to set
 	 */
-	public int[][] getSolution() {
-		return solution;
-	}
-
-	/**
-	 * @param solution the solution to set
-	 */
-	public void setSolution(int[][] solution) {
-		this.solution = solution;
+	public void setBoard(Board board) {
+		this.board = board;
+		countOccupancy();
 	}
 
 	/**
@@ -611,14 +435,14 @@ private View view = new View();
 	/**
 	 * @return the elemOrder
 	 */
-	public ArrayList<Cell> getElemOrder() {
+	public int[] getElemOrder() {
 		return elemOrder;
 	}
 
 	/**
 	 * @param elemOrder the elemOrder to set
 	 */
-	public void setElemOrder(ArrayList<Cell> elemOrder) {
+	public void setElemOrder(int[] elemOrder) {
 		this.elemOrder = elemOrder;
 	}
 
@@ -636,6 +460,50 @@ private View view = new View();
 		this.solved = solved;
 	}
 
+	/**
+	 * @return the uniquenessCheck, or null if the puzzle was generated ahead of time
+	 */
+	public UniquenessCheck getUniquenessCheck() {
+		return uniquenessCheck;
+	}
+
+	/**
+	 * @return the number of empty cells
+	 */
+	public int getNumOfEmpty() {
+		return emptyCells.size();
+	}
+
+	/**
+	 * @return true if moves are checked against the rules instead of the answer key
+	 */
+	public boolean isFreeEntry() {
+		return freeEntry;
+	}
+
+	/**
+	 * @param freeEntry whether to check moves against the rules instead of the answer key
+	 */
+	public void setFreeEntry(boolean freeEntry) {
+		this.freeEntry = freeEntry;
+		if(journal != null)
+			journal.recordFreeEntry(freeEntry);
+	}
+
+	/**
+	 * @return the journal the game is saved to, or null
+	 */
+	public GameJournal getJournal() {
+		return journal;
+	}
+
+	/**
+	 * @param journal the journal to record the game's actions in, or null
+	 */
+	public void setJournal(GameJournal journal) {
+		this.journal = journal;
+	}
+
 	/**
 	 * @return the sqrt
 	 */
@@ -0,0 +1,44 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * @author Joshua Boone
+ *
+ * Flight recorder event for one puzzle generation, from the first search starting to the
+ * winning search finishing. Shows up in any JFR recording next to GC and allocation events,
+ * and costs next to nothing when no recording is running.
+ *
+ */
+@Name("sudoku.Generation")
+@Label("Puzzle Generation")
+@Category({"Sudoku", "Generation"})
+@Description("Generation of one puzzle, including every raced search")
+public class GenerationEvent extends Event
+{
+	@Label("Dimension")
+	int		dimension;
+
+	@Label("Uniqueness Check")
+	String	uniquenessCheck;
+
+	@Label("Strategy")
+	String	strategy;
+
+	@Label("Searches")
+	int		searches;
+
+	@Label("Givens")
+	@Description("Number of givens of the puzzle, 0 if none was generated")
+	int		givens;
+
+	@Label("Backtracks")
+	@Description("Givens popped off the given order by the winning search")
+	long	backtracks;
+
+	@Label("Outcome")
+	@Description("GENERATED, STOPPED or DEAD_END")
+	String	outcome;
+}
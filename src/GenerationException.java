@@ -0,0 +1,71 @@
+/**
+ * @author Joshua Boone
+ *
+ * Typed failure of puzzle generation, so callers can tell a timeout or a cancellation
+ * apart from a search that ran out of options.
+ *
+ */
+public class GenerationException extends RuntimeException
+{
+	private static final long	serialVersionUID = 1L;
+
+	/**
+	 * Why generation stopped without a puzzle.
+	 */
+	public enum Reason
+	{
+		/** The deadline passed before a unique puzzle was found. */
+		TIMED_OUT,
+
+		/** The cancellation token was cancelled. */
+		CANCELLED,
+
+		/** Every search backtracked past its first given. */
+		DEAD_END
+	}
+
+	private Reason				reason;
+	private int					dimension;
+	private long				elapsedNanos;
+
+	/**
+	 * Constructor
+	 *
+	 * @param reason       why generation stopped
+	 * @param dimension    dimension of the puzzle being generated
+	 * @param elapsedNanos how long generation ran
+	 */
+	public GenerationException(Reason reason, int dimension, long elapsedNanos)
+	{
+		super("Generation of a " + dimension + "x" + dimension + " puzzle stopped after "
+			  + (elapsedNanos / 1000000) + " ms: " + reason);
+
+		this.reason			= reason;
+		this.dimension		= dimension;
+		this.elapsedNanos	= elapsedNanos;
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the reason
+	 */
+	public Reason getReason() {
+		return reason;
+	}
+
+	/**
+	 * @return the dimension
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return the elapsedNanos
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+}
@@ -0,0 +1,274 @@
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * @author Joshua Boone
+ *
+ * Generation counters of one dimension, registered with the platform MBean server as
+ * Sudoku:type=GenerationMetrics,dimension=N so they can be watched from JConsole or
+ * any other JMX console.
+ *
+ * Every search registers its GenerationStats while it runs and adds them to the
+ * totals when it finishes. The searches never touch this class in their inner loops.
+ * A read that races a finishing search may briefly leave that search out, but never
+ * counts it twice.
+ *
+ */
+public class GenerationMetrics implements GenerationMetricsMBean
+{
+	private static final ConcurrentHashMap<Integer, GenerationMetrics>	METRICS = new ConcurrentHashMap<Integer, GenerationMetrics>();
+
+	private int						dimension;
+	private Set<GenerationStats>	active;
+
+	private LongAdder				searchesFinished;
+	private LongAdder				puzzlesGenerated;
+	private LongAdder				solvableChecks;
+	private LongAdder				arcs;
+	private LongAdder				removals;
+	private LongAdder				backtracks;
+	private LongAdder				placed;
+	private LongAdder				propagationNanos;
+	private LongAdder				uniquenessNanos;
+	private LongAdder				backtrackingNanos;
+	private LongAdder				elapsedNanos;
+
+	/**
+	 * Constructor
+	 *
+	 * @param dim dimension of the puzzles counted
+	 */
+	private GenerationMetrics(int dim)
+	{
+		dimension			= dim;
+		active				= ConcurrentHashMap.newKeySet();
+
+		searchesFinished	= new LongAdder();
+		puzzlesGenerated	= new LongAdder();
+		solvableChecks		= new LongAdder();
+		arcs				= new LongAdder();
+		removals			= new LongAdder();
+		backtracks			= new LongAdder();
+		placed				= new LongAdder();
+		propagationNanos	= new LongAdder();
+		uniquenessNanos		= new LongAdder();
+		backtrackingNanos	= new LongAdder();
+		elapsedNanos		= new LongAdder();
+	}
+
+	/**
+	 * Returns the metrics of a dimension, creating and registering them on first use.
+	 *
+	 * @param dim dimension of the puzzles counted
+	 */
+	public static GenerationMetrics of(int dim)
+	{
+		return METRICS.computeIfAbsent(dim, GenerationMetrics::register);
+	}
+
+	private static GenerationMetrics register(int dim)
+	{
+		GenerationMetrics metrics = new GenerationMetrics(dim);
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName("Sudoku:type=GenerationMetrics,dimension=" + dim));
+		}
+		catch(JMException e)
+		{
+			// Still count, the numbers are just not visible from a console
+		}
+		return metrics;
+	}
+
+	/**
+	 * Starts counting a search.
+	 *
+	 * @param stats counters of the search
+	 */
+	public void started(GenerationStats stats)
+	{
+		stats.start();
+		active.add(stats);
+	}
+
+	/**
+	 * Adds a finished search to the totals.
+	 *
+	 * @param stats     counters of the search
+	 * @param generated true if the search produced a puzzle
+	 */
+	public void finished(GenerationStats stats, boolean generated)
+	{
+		stats.finish();
+
+		// Leave the running searches first, so a read in between never counts it twice
+		active.remove(stats);
+
+		searchesFinished.increment();
+		if(generated)
+			puzzlesGenerated.increment();
+		solvableChecks.add(stats.getSolvableChecks());
+		arcs.add(stats.getArcs());
+		removals.add(stats.getRemovals());
+		backtracks.add(stats.getBacktracks());
+		placed.add(stats.getPlaced());
+		propagationNanos.add(stats.getPropagationNanos());
+		uniquenessNanos.add(stats.getUniquenessNanos());
+		backtrackingNanos.add(stats.getBacktrackingNanos());
+		elapsedNanos.add(stats.getElapsedNanos());
+	}
+
+	/**
+	 * Sums a counter over the running searches.
+	 */
+	private long current(ToLongFunction<GenerationStats> counter)
+	{
+		long sum = 0;
+		for(GenerationStats stats : active)
+		{
+			sum += counter.applyAsLong(stats);
+		}
+		return sum;
+	}
+
+	private static long millis(long nanos)
+	{
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	@Override
+	public void reset()
+	{
+		searchesFinished.reset();
+		puzzlesGenerated.reset();
+		solvableChecks.reset();
+		arcs.reset();
+		removals.reset();
+		backtracks.reset();
+		placed.reset();
+		propagationNanos.reset();
+		uniquenessNanos.reset();
+		backtrackingNanos.reset();
+		elapsedNanos.reset();
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	@Override
+	public int getDimension() {
+		return dimension;
+	}
+
+	@Override
+	public long getSearchesFinished() {
+		return searchesFinished.sum();
+	}
+
+	@Override
+	public long getPuzzlesGenerated() {
+		return puzzlesGenerated.sum();
+	}
+
+	@Override
+	public long getSolvableChecks() {
+		return solvableChecks.sum() + getCurrentSolvableChecks();
+	}
+
+	@Override
+	public long getArcsProcessed() {
+		return arcs.sum() + getCurrentArcsProcessed();
+	}
+
+	@Override
+	public long getDomainRemovals() {
+		return removals.sum() + getCurrentDomainRemovals();
+	}
+
+	@Override
+	public long getBacktracks() {
+		return backtracks.sum() + getCurrentBacktracks();
+	}
+
+	@Override
+	public long getGivensPlaced() {
+		return placed.sum() + getCurrentGivensPlaced();
+	}
+
+	@Override
+	public long getPropagationMillis() {
+		return millis(propagationNanos.sum() + current(GenerationStats::getPropagationNanos));
+	}
+
+	@Override
+	public long getUniquenessMillis() {
+		return millis(uniquenessNanos.sum() + current(GenerationStats::getUniquenessNanos));
+	}
+
+	@Override
+	public long getBacktrackingMillis() {
+		return millis(backtrackingNanos.sum() + current(GenerationStats::getBacktrackingNanos));
+	}
+
+	@Override
+	public long getGenerationMillis() {
+		return millis(elapsedNanos.sum() + current(GenerationStats::getElapsedNanos));
+	}
+
+	@Override
+	public int getActiveSearches() {
+		return active.size();
+	}
+
+	@Override
+	public long getCurrentSolvableChecks() {
+		return current(GenerationStats::getSolvableChecks);
+	}
+
+	@Override
+	public long getCurrentArcsProcessed() {
+		return current(GenerationStats::getArcs);
+	}
+
+	@Override
+	public long getCurrentDomainRemovals() {
+		return current(GenerationStats::getRemovals);
+	}
+
+	@Override
+	public long getCurrentBacktracks() {
+		return current(GenerationStats::getBacktracks);
+	}
+
+	@Override
+	public long getCurrentGivensPlaced() {
+		return current(GenerationStats::getPlaced);
+	}
+
+	@Override
+	public long getCurrentPropagationMillis() {
+		return millis(current(GenerationStats::getPropagationNanos));
+	}
+
+	@Override
+	public long getCurrentUniquenessMillis() {
+		return millis(current(GenerationStats::getUniquenessNanos));
+	}
+
+	@Override
+	public long getCurrentBacktrackingMillis() {
+		return millis(current(GenerationStats::getBacktrackingNanos));
+	}
+
+	@Override
+	public long getCurrentElapsedMillis() {
+		return millis(current(GenerationStats::getElapsedNanos));
+	}
+}
@@ -0,0 +1,39 @@
+/**
+ * @author Joshua Boone
+ *
+ * Management interface of GenerationMetrics, one per puzzle dimension.
+ *
+ * The cumulative counters include the searches still running. The current counters
+ * only cover the running searches, so a stalled generation shows whether its time goes
+ * into backtracking, propagation or the uniqueness search.
+ *
+ */
+public interface GenerationMetricsMBean
+{
+	int getDimension();
+
+	long getSearchesFinished();
+	long getPuzzlesGenerated();
+	long getSolvableChecks();
+	long getArcsProcessed();
+	long getDomainRemovals();
+	long getBacktracks();
+	long getGivensPlaced();
+	long getPropagationMillis();
+	long getUniquenessMillis();
+	long getBacktrackingMillis();
+	long getGenerationMillis();
+
+	int getActiveSearches();
+	long getCurrentSolvableChecks();
+	long getCurrentArcsProcessed();
+	long getCurrentDomainRemovals();
+	long getCurrentBacktracks();
+	long getCurrentGivensPlaced();
+	long getCurrentPropagationMillis();
+	long getCurrentUniquenessMillis();
+	long getCurrentBacktrackingMillis();
+	long getCurrentElapsedMillis();
+
+	void reset();
+}
@@ -0,0 +1,135 @@
+/**
+ * @author Joshua Boone
+ *
+ * Counters of one puzzle search: how often it checked the board, how much propagation
+ * work the constraint store did, how often it backtracked, and the wall time spent in
+ * each phase.
+ *
+ * A search only ever writes its own counters from its own thread, so they are plain
+ * fields. GenerationMetrics reads them from other threads while the search runs; those
+ * readings are not synchronized and may lag the search slightly, which is fine for
+ * watching a search from a console.
+ *
+ */
+public class GenerationStats
+{
+	long	solvableChecks;
+	long	arcs;
+	long	removals;
+	long	backtracks;
+	long	placed;
+
+	long	propagationNanos;
+	long	uniquenessNanos;
+	long	backtrackingNanos;
+
+	private long	startNanos;
+	private long	finishNanos;
+	private boolean	finished;
+
+	// Start of the uniqueness search in progress, or 0 when there is none
+	private long	uniquenessStart;
+
+	/**
+	 * Starts the wall clock of the search.
+	 */
+	void start()
+	{
+		startNanos	= System.nanoTime();
+		finished	= false;
+	}
+
+	/**
+	 * Stops the wall clock of the search.
+	 */
+	void finish()
+	{
+		finishNanos	= System.nanoTime();
+		finished	= true;
+	}
+
+	/**
+	 * Marks the start of a search for a second solution.
+	 * A single search can run for seconds on a large board, so it is counted while it runs.
+	 */
+	void startUniqueness()
+	{
+		uniquenessStart = System.nanoTime();
+	}
+
+	/**
+	 * Marks the end of a search for a second solution.
+	 */
+	void finishUniqueness()
+	{
+		uniquenessNanos	+= System.nanoTime() - uniquenessStart;
+		uniquenessStart	= 0;
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the number of times the search checked the board for errors and a unique solution
+	 */
+	public long getSolvableChecks() {
+		return solvableChecks;
+	}
+
+	/**
+	 * @return the number of peers visited while propagating singles
+	 */
+	public long getArcs() {
+		return arcs;
+	}
+
+	/**
+	 * @return the number of times values were removed from a domain
+	 */
+	public long getRemovals() {
+		return removals;
+	}
+
+	/**
+	 * @return the number of givens popped off the given order
+	 */
+	public long getBacktracks() {
+		return backtracks;
+	}
+
+	/**
+	 * @return the number of givens placed, including ones taken back
+	 */
+	public long getPlaced() {
+		return placed;
+	}
+
+	/**
+	 * @return nanoseconds spent assigning givens and propagating them
+	 */
+	public long getPropagationNanos() {
+		return propagationNanos;
+	}
+
+	/**
+	 * @return nanoseconds spent searching for a second solution
+	 */
+	public long getUniquenessNanos() {
+		long start = uniquenessStart;
+		return start == 0 ? uniquenessNanos : uniquenessNanos + System.nanoTime() - start;
+	}
+
+	/**
+	 * @return nanoseconds spent taking back givens
+	 */
+	public long getBacktrackingNanos() {
+		return backtrackingNanos;
+	}
+
+	/**
+	 * @return nanoseconds since the search started, or its total time once it has finished
+	 */
+	public long getElapsedNanos() {
+		return (finished ? finishNanos : System.nanoTime()) - startNanos;
+	}
+}
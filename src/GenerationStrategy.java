@@ -0,0 +1,21 @@
+/**
+ * @author Joshua Boone
+ *
+ * Ways the generator can build a puzzle.
+ *
+ */
+public enum GenerationStrategy
+{
+	/**
+	 * Adds random givens to an empty board, backtracking on errors, until the puzzle
+	 * has a unique solution. The search can run for a long time from 16x16 up.
+	 */
+	ADD_GIVENS,
+
+	/**
+	 * Fills a complete random grid first, then removes cells in random order, keeping
+	 * each removal only if the puzzle still has a unique solution. Never backtracks,
+	 * so it takes one uniqueness check per cell.
+	 */
+	DIG_HOLES
+}
@@ -0,0 +1,208 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * @author Joshua Boone
+ *
+ * Plays many simulated players against a GameServer at once and reports how many
+ * commands per second it answered and how long each answer took.
+ *
+ * Every player connects, starts a game and then sends a mix of value selections, moves
+ * to random cells, hints and board requests, waiting for each answer before the next
+ * command. A game that ends is replaced with NEW, which is timed like any other command.
+ *
+ */
+public class LoadTestClient
+{
+	private int		clients;
+	private int		commands;
+	private int		port;
+	private int		dimension;
+
+	private int		errors;
+
+	/**
+	 * Constructor
+	 *
+	 * @param clients  number of simulated players
+	 * @param commands number of commands each player sends
+	 * @param port     port of the server on the loopback address
+	 * @param dim      dimension of the games
+	 */
+	public LoadTestClient(int clients, int commands, int port, int dim)
+	{
+		this.clients	= clients;
+		this.commands	= commands;
+		this.port		= port;
+		this.dimension	= GameState.checkDimension(dim);
+	}
+
+	/**
+	 * Usage: LoadTestClient clients commands [port] [dimension]
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		if(args.length < 2)
+		{
+			System.out.println("Usage: LoadTestClient clients commands [port] [dimension]");
+			System.exit(1);
+		}
+
+		int port	= args.length > 2 ? Integer.parseInt(args[2]) : GameServer.DEFAULT_PORT;
+		int dim		= args.length > 3 ? Integer.parseInt(args[3]) : 9;
+
+		new LoadTestClient(Integer.parseInt(args[0]), Integer.parseInt(args[1]), port, dim).run();
+	}
+
+	/**
+	 * Runs every player to the end and prints the statistics.
+	 */
+	public void run() throws IOException, InterruptedException
+	{
+		ExecutorService			players	= GameServer.newPerTaskExecutor("load-test-");
+		CountDownLatch			ready	= new CountDownLatch(clients);
+		CountDownLatch			go		= new CountDownLatch(1);
+		List<Future<long[]>>	results	= new ArrayList<Future<long[]>>();
+
+		for(int i = 0; i < clients; i++)
+		{
+			long seed = i;
+			results.add(players.submit(() -> play(seed, ready, go)));
+		}
+
+		// Connect everyone before the clock starts
+		ready.await();
+		long start = System.nanoTime();
+		go.countDown();
+
+		long[]	latencies	= new long[clients*commands];
+		int		count		= 0;
+		try
+		{
+			for(Future<long[]> result : results)
+			{
+				long[] player = result.get();
+				System.arraycopy(player, 0, latencies, count, player.length);
+				count += player.length;
+			}
+		}
+		catch(ExecutionException e)
+		{
+			throw new IOException("Player failed", e.getCause());
+		}
+		finally
+		{
+			players.shutdownNow();
+		}
+
+		printStatistics(Arrays.copyOf(latencies, count), System.nanoTime() - start);
+	}
+
+	/**
+	 * Plays one connection and returns the latency of every command it sent.
+	 */
+	private long[] play(long seed, CountDownLatch ready, CountDownLatch go) throws IOException, InterruptedException
+	{
+		Random	rand		= new Random(seed);
+		long[]	latencies	= new long[commands];
+		boolean	connected	= false;
+
+		try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+			BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)))
+		{
+			socket.setTcpNoDelay(true);
+			connected = true;
+			ready.countDown();
+			go.await();
+
+			String command = "NEW " + dimension + " 1000 1000";
+			for(int i = 0; i < commands; i++)
+			{
+				long start = System.nanoTime();
+				out.write(command);
+				out.write('\n');
+				out.flush();
+				String answer = in.readLine();
+				latencies[i] = System.nanoTime() - start;
+
+				if(answer == null)
+					throw new IOException("Server closed the connection");
+				if(answer.startsWith("ERR"))
+					countError();
+
+				command = nextCommand(answer, rand);
+			}
+		}
+		finally
+		{
+			// Never leave the main thread waiting on a player that could not connect
+			if(!connected)
+				ready.countDown();
+		}
+		return latencies;
+	}
+
+	/**
+	 * Picks the command that follows an answer.
+	 */
+	private String nextCommand(String answer, Random rand)
+	{
+		if(answer.endsWith("SOLVED") || answer.endsWith("FAILED") || answer.startsWith("ERR"))
+			return "NEW " + dimension + " 1000 1000";
+
+		int pick = rand.nextInt(20);
+		if(pick < 8)
+			return (1 + rand.nextInt(dimension)) + " " + (1 + rand.nextInt(dimension));
+		if(pick < 16)
+			return Integer.toString(1 + rand.nextInt(dimension));
+		if(pick < 18)
+			return "HINT";
+		return "BOARD";
+	}
+
+	/**
+	 * Counts a command the server refused.
+	 */
+	private synchronized void countError()
+	{
+		errors++;
+	}
+
+	/**
+	 * Prints throughput and latency percentiles.
+	 */
+	private void printStatistics(long[] latencies, long elapsed)
+	{
+		Arrays.sort(latencies);
+
+		double seconds = elapsed / 1e9;
+		System.out.printf("%d players sent %d commands in %.3f s (%.0f commands/sec), %d errors%n",
+						  clients, latencies.length, seconds, latencies.length / seconds, errors);
+		if(latencies.length == 0)
+			return;
+
+		System.out.printf("Latency ms: p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  max %.3f%n",
+						  BatchGenerator.percentile(latencies, 0.50) / 1e6,
+						  BatchGenerator.percentile(latencies, 0.90) / 1e6,
+						  BatchGenerator.percentile(latencies, 0.99) / 1e6,
+						  BatchGenerator.percentile(latencies, 0.999) / 1e6,
+						  latencies[latencies.length - 1] / 1e6);
+	}
+}
@@ -1,28 +1,201 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * @author Joshua Boone
  *
  *
  * Holds the instance of the game state
  *
+ * New games are served from a per-dimension pool of puzzles that worker threads
+ * generate ahead of time. Only dimensions up to MAX_POOLED_DIMENSION are pooled; larger
+ * puzzles can take minutes each, so they are only generated when a game asks for one.
+ *
  */
-public class Model 
+public class Model
 {
+	// Largest dimension whose puzzles are generated ahead of time
+	public static final int	MAX_POOLED_DIMENSION = 16;
+
 	public GameState gameState;
-	
+
+	private ConcurrentHashMap<Integer, PuzzlePool>	pools;
+	private int										lowWatermark;
+	private int										highWatermark;
+	private int										poolThreads;
+	private ProgressListener						progressListener;
+
 	public Model()
 	{
-		//gameState = newGame();
+		this(2, 4, 1);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param low     refill a pool once fewer puzzles than this are ready
+	 * @param high    stop refilling a pool once this many puzzles are ready
+	 * @param threads number of worker threads per pool
+	 */
+	public Model(int low, int high, int threads)
+	{
+		pools			= new ConcurrentHashMap<Integer, PuzzlePool>();
+		lowWatermark	= low;
+		highWatermark	= high;
+		poolThreads		= threads;
+
+		// Start filling the standard size right away
+		getPool(9);
 	}
-	
+
 	public GameState newGame()
-	{ 
-		gameState = new GameState();
-		return gameState;
+	{
+		// Size defaults to standard sudoku puzzle size, with "unlimited" misses and hints
+		return newGame(9, 1000, 1000);
 	}
-	
+
 	public GameState newGame(int dim, int mM, int mH)
-	{ 
-		gameState = new GameState(dim, mM, mH);
+	{
+		gameState = createGame(dim, mM, mH);
+		return gameState;
+	}
+
+	/**
+	 * Creates a game from the pooled puzzles without making it the current game, for
+	 * callers that keep games of their own, such as the sessions of a GameServer.
+	 * Safe to call from many threads at once.
+	 * 
+	 * @param dim dimension of the puzzle
+	 * @param mM  max number of misses
+	 * @param mH  max number of hints
+	 */
+	public GameState createGame(int dim, int mM, int mH)
+	{
+		int		size	= GameState.checkDimension(dim);
+		Puzzle	puzzle	= size <= MAX_POOLED_DIMENSION ? getPool(size).take(progressListener) : null;
+
+		if(puzzle == null)
+			return new GameState(size, mM, mH, PuzzleGenerator.defaultCheck(size), PuzzleGenerator.defaultSearches(size), progressListener);
+		return new GameState(puzzle, mM, mH);
+	}
+
+	/**
+	 * Creates a new game without blocking the caller.
+	 * A pooled puzzle is used right away if one is ready; otherwise the puzzle is generated
+	 * in the background. The game is not made the current game, since the future completes
+	 * on a generator thread; the caller sets gameState once it has the result.
+	 * 
+	 * @param dim      dimension of the puzzle
+	 * @param mM       max number of misses
+	 * @param mH       max number of hints
+	 * @param deadline when to give up generating
+	 * @param token    stops generation once cancelled
+	 * @return the new game, or a GenerationException if it could not be generated in time
+	 */
+	public CompletableFuture<GameState> newGameAsync(int dim, int mM, int mH, Instant deadline, CancellationToken token)
+	{
+		int		size	= GameState.checkDimension(dim);
+		Puzzle	puzzle	= size <= MAX_POOLED_DIMENSION ? getPool(size).poll() : null;
+
+		if(puzzle != null)
+			return CompletableFuture.completedFuture(new GameState(puzzle, mM, mH));
+
+		return PuzzleGenerator.generateAsync(size, PuzzleGenerator.defaultCheck(size), PuzzleGenerator.defaultSearches(size), deadline, token, progressListener)
+							  .thenApply(generated -> new GameState(generated, mM, mH));
+	}
+
+	/**
+	 * Starts a new game generated on demand with the chosen strategy.
+	 * DIG_HOLES takes one uniqueness check per cell and never backtracks, so it is
+	 * not raced and does not wait for a pooled puzzle.
+	 * 
+	 * @param dim      dimension of the puzzle
+	 * @param mM       max number of misses
+	 * @param mH       max number of hints
+	 * @param strategy how to build the puzzle
+	 */
+	public GameState newGame(int dim, int mM, int mH, GenerationStrategy strategy)
+	{
+		if(strategy == GenerationStrategy.ADD_GIVENS)
+			return newGame(dim, mM, mH);
+
+		int size	= GameState.checkDimension(dim);
+		gameState	= new GameState(size, mM, mH, PuzzleGenerator.defaultCheck(size), strategy, 1, progressListener);
+		return gameState;
+	}
+
+	/**
+	 * Starts a new game with a puzzle from a library.
+	 * The puzzle is read straight from the library's mapped file into the new board.
+	 * 
+	 * @param library the puzzle library
+	 * @param index   number of the puzzle in the library, from 0
+	 * @param mM      max number of misses
+	 * @param mH      max number of hints
+	 */
+	public GameState newGame(PuzzleLibrary library, int index, int mM, int mH)
+	{
+		gameState = new GameState(library.get(index), mM, mH);
 		return gameState;
 	}
+
+	/**
+	 * Resumes a saved game, which keeps saving to the same file.
+	 * 
+	 * @param file the saved game
+	 * @throws IOException if the file cannot be read or is not a saved game
+	 */
+	public GameState resumeGame(Path file) throws IOException
+	{
+		gameState = GameJournal.resume(file);
+		return gameState;
+	}
+
+	public GameState newGame(int dim, int mM, int mH, UniquenessCheck check)
+	{
+		gameState = new GameState(dim, mM, mH, check, 1, progressListener);
+		return gameState;
+	}
+
+	public GameState newGame(int dim, int mM, int mH, UniquenessCheck check, int searches)
+	{
+		gameState = new GameState(dim, mM, mH, check, searches, progressListener);
+		return gameState;
+	}
+
+	/**
+	 * Returns the puzzle pool for a dimension, starting it if needed.
+	 *
+	 * @param dim dimension of the pooled puzzles, must be a perfect square
+	 * @throws IllegalArgumentException if the dimension is larger than MAX_POOLED_DIMENSION
+	 */
+	public PuzzlePool getPool(int dim)
+	{
+		if(dim > MAX_POOLED_DIMENSION)
+			throw new IllegalArgumentException("Puzzles are only pooled up to dimension " + MAX_POOLED_DIMENSION + ": " + dim);
+
+		return pools.computeIfAbsent(dim, size -> new PuzzlePool(size, lowWatermark, highWatermark, poolThreads));
+	}
+
+	/**
+	 * @param listener receives progress whenever a game has to be generated on demand, or null
+	 */
+	public void setProgressListener(ProgressListener listener)
+	{
+		progressListener = listener;
+	}
+
+	/**
+	 * Stops the worker threads of every pool.
+	 */
+	public void shutdown()
+	{
+		for(PuzzlePool pool : pools.values())
+		{
+			pool.shutdown();
+		}
+	}
 }
@@ -0,0 +1,35 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * @author Joshua Boone
+ *
+ * Flight recorder event for one command handled by the game loop, from reading the
+ * command to drawing the resulting frame. Time spent waiting for the user is not included.
+ *
+ */
+@Name("sudoku.PlayerAction")
+@Label("Player Action")
+@Category({"Sudoku", "Gameplay"})
+@Description("A command handled by the game loop")
+public class PlayerActionEvent extends Event
+{
+	@Label("Action")
+	@Description("NEW, HINT, FREE, MOVE or SELECT")
+	String	action;
+
+	@Label("Dimension")
+	int		dimension;
+
+	@Label("Empty Cells")
+	int		empty;
+
+	@Label("Render Time")
+	@Description("Nanoseconds spent drawing the frame")
+	@Timespan(Timespan.NANOSECONDS)
+	long	renderNanos;
+}
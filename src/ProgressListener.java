@@ -0,0 +1,38 @@
+/**
+ * @author Joshua Boone
+ *
+ * Receives progress from puzzle generation.
+ *
+ * placed and backtracked are called from inside the generator's search loop, possibly
+ * from several racing searches at once, so implementations must only update counters
+ * and return without blocking or doing any I/O.
+ *
+ */
+public interface ProgressListener
+{
+	/**
+	 * Called before generation of a puzzle starts.
+	 *
+	 * @param dimension dimension of the puzzle
+	 */
+	void started(int dimension);
+
+	/**
+	 * Called every time the generator places a given.
+	 *
+	 * @param depth number of givens on the board, including this one
+	 */
+	void placed(int depth);
+
+	/**
+	 * Called every time the generator takes back a given whose values are exhausted.
+	 *
+	 * @param depth number of givens left on the board
+	 */
+	void backtracked(int depth);
+
+	/**
+	 * Called once generation has finished, whether or not it found a puzzle.
+	 */
+	void finished();
+}
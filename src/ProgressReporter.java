@@ -0,0 +1,131 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Joshua Boone
+ *
+ * Progress listener that prints generation progress at a fixed maximum rate.
+ *
+ * The generator only bumps counters. A separate reporter thread samples them on a
+ * timer and prints the backtrack rate, the current depth of the given order and the
+ * number of givens placed so far, so no console I/O happens inside the search.
+ *
+ */
+public class ProgressReporter implements ProgressListener
+{
+	private View						view;
+	private ScheduledExecutorService	timer;
+
+	private LongAdder					placements;
+	private LongAdder					backtracks;
+	private AtomicInteger				depth;
+
+	// Only touched by the reporter thread
+	private boolean						active;
+	private long						lastBacktracks;
+	private long						lastNanos;
+
+	/**
+	 * Constructor
+	 *
+	 * @param view   where to print progress
+	 * @param period milliseconds between reports, 250 for 4 reports a second
+	 */
+	public ProgressReporter(View view, long period)
+	{
+		this.view	= view;
+		placements	= new LongAdder();
+		backtracks	= new LongAdder();
+		depth		= new AtomicInteger();
+
+		timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "progress-reporter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		timer.scheduleAtFixedRate(this::report, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void started(int dimension)
+	{
+		placements.reset();
+		backtracks.reset();
+		depth.set(0);
+
+		timer.execute(() -> {
+			lastBacktracks	= 0;
+			lastNanos		= System.nanoTime();
+			active			= true;
+		});
+	}
+
+	@Override
+	public void placed(int depth)
+	{
+		placements.increment();
+		this.depth.lazySet(depth);
+	}
+
+	@Override
+	public void backtracked(int depth)
+	{
+		backtracks.increment();
+		this.depth.lazySet(depth);
+	}
+
+	/**
+	 * Ends the progress line on the reporter thread, after any report in progress,
+	 * and waits for it so the caller's next output comes after it.
+	 */
+	@Override
+	public void finished()
+	{
+		try
+		{
+			timer.submit(() -> {
+				if(active)
+					view.printProgressDone();
+				active = false;
+			}).get();
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch(ExecutionException e)
+		{
+			throw new IllegalStateException("Progress reporter failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Stops the reporter thread.
+	 */
+	public void shutdown()
+	{
+		timer.shutdownNow();
+	}
+
+	/**
+	 * Prints one progress line from the current counters.
+	 */
+	private void report()
+	{
+		if(!active)
+			return;
+
+		long now		= System.nanoTime();
+		long total		= backtracks.sum();
+		long perSecond	= (total - lastBacktracks) * 1000000000L / Math.max(1, now - lastNanos);
+
+		lastBacktracks	= total;
+		lastNanos		= now;
+
+		view.printProgress(perSecond, depth.get(), placements.sum());
+	}
+}
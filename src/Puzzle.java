@@ -0,0 +1,56 @@
+/**
+ * @author Joshua Boone
+ *
+ * A finished puzzle: the board with its answer key and the order the givens were placed in.
+ * Produced by PuzzleGenerator without any of the generator's search state, so it can be
+ * kept around until a game is started with it.
+ *
+ */
+public class Puzzle
+{
+	private Board				board;
+	private int[]				elemOrder;
+
+	/**
+	 * Constructor
+	 *
+	 * @param board     the givens and the answer key
+	 * @param elemOrder indices of the given cells in the order they were placed
+	 */
+	public Puzzle(Board board, int[] elemOrder)
+	{
+		this.board		= board;
+		this.elemOrder	= elemOrder;
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the board
+	 */
+	public Board getBoard() {
+		return board;
+	}
+
+	/**
+	 * @return the elemOrder
+	 */
+	public int[] getElemOrder() {
+		return elemOrder;
+	}
+
+	/**
+	 * @return the dimension
+	 */
+	public int getDimension() {
+		return board.getDimension();
+	}
+
+	/**
+	 * @return the sqrt
+	 */
+	public int getSqrt() {
+		return board.getSqrt();
+	}
+}
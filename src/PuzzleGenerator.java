@@ -0,0 +1,873 @@
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Joshua Boone
+ *
+ * A single puzzle generation search.
+ * Holds all of the mutable state used while generating, so several searches can
+ * run at the same time with different seeds.
+ *
+ * Uses constraint satisfaction and backtracking to generate the puzzle, and
+ * constraint propagation to catch errors and check for unique solutions.
+ * Once a unique solution is guaranteed, an answer key is generated for efficiency.
+ *
+ * The board is a flat Board, and the values each given has left to try are kept in a
+ * parallel long array of candidate bits indexed the same way, so backtracking touches
+ * only primitive arrays.
+ *
+ */
+public class PuzzleGenerator
+{
+	private static final ExecutorService	POOL = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "puzzle-generator");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private static final ScheduledExecutorService	DEADLINES = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "generation-deadline");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// Search nodes per cell a uniqueness check may use while digging holes
+	private static final long				DIG_NODES_PER_CELL	= 20;
+
+	// Smallest dimension whose dig-holes grid comes from the SolutionGridFactory
+	private static final int				PATTERN_GRID_MIN_DIMENSION	= 49;
+
+	private Board				board;
+	private long[]				untried;
+
+	private int					dimension;
+	private Topology			topology;
+
+	private int[]				elemOrder;
+	private int					numOfElems;
+	private UniquenessCheck		uniquenessCheck;
+	private GenerationStrategy	strategy;
+	private ConstraintStore		store;
+	private GenerationStats		stats;
+	private SolutionCounter		solutionCounter;
+	private DancingLinks		dancingLinks;
+	private int[]				givens;
+
+	private Random				rand;
+	private CandidateSet		tempDomain;
+
+	private AtomicBoolean		cancelled;
+	private ProgressListener	listener;
+
+	/**
+	 * Constructor
+	 *
+	 * @param dim       dimension of the puzzle, must be a perfect square
+	 * @param check     how to decide that the puzzle is unique
+	 * @param seed      seed for the random choices of this search
+	 * @param cancelled flag that stops the search once it is set
+	 */
+	public PuzzleGenerator(int dim, UniquenessCheck check, long seed, AtomicBoolean cancelled)
+	{
+		this(dim, check, GenerationStrategy.ADD_GIVENS, seed, cancelled);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param dim       dimension of the puzzle, must be a perfect square
+	 * @param check     how to decide that the puzzle is unique
+	 * @param strategy  how to build the puzzle
+	 * @param seed      seed for the random choices of this search
+	 * @param cancelled flag that stops the search once it is set
+	 */
+	public PuzzleGenerator(int dim, UniquenessCheck check, GenerationStrategy strategy, long seed, AtomicBoolean cancelled)
+	{
+		dimension		= dim;
+		topology		= Topology.of(dim);
+		uniquenessCheck	= check;
+		this.strategy	= strategy;
+		rand			= new Random(seed);
+		this.cancelled	= cancelled;
+
+		board			= new Board(dimension);
+		untried			= new long[dimension*dimension];
+		elemOrder		= new int[dimension*dimension];
+		numOfElems		= 0;
+		store			= new ConstraintStore(dimension);
+		stats			= store.getStats();
+		solutionCounter	= new SolutionCounter(dimension);
+		givens			= new int[dimension*dimension];
+		tempDomain		= new CandidateSet();
+
+		solutionCounter.setCancelled(cancelled);
+		// Digging holes below the pattern grid size fills its grid with the exact cover solver
+		if(uniquenessCheck == UniquenessCheck.EXACT_COVER
+			|| (strategy == GenerationStrategy.DIG_HOLES && dimension < PATTERN_GRID_MIN_DIMENSION))
+		{
+			dancingLinks = new DancingLinks(dimension);
+			dancingLinks.setCancelled(cancelled);
+		}
+	}
+
+	/**
+	 * Generates a puzzle without reporting progress.
+	 * 
+	 * @param dim      dimension of the puzzle, must be a perfect square
+	 * @param check    how to decide that the puzzle is unique
+	 * @param searches number of searches to race
+	 * @return the puzzle, or null if generation hit a dead end
+	 */
+	public static Puzzle generate(int dim, UniquenessCheck check, int searches)
+	{
+		return generate(dim, check, searches, null);
+	}
+
+	/**
+	 * Generates a puzzle.
+	 * 
+	 * @param dim      dimension of the puzzle, must be a perfect square
+	 * @param check    how to decide that the puzzle is unique
+	 * @param searches number of searches to race
+	 * @param listener receives progress from every search, or null
+	 * @return the puzzle, or null if generation hit a dead end
+	 */
+	public static Puzzle generate(int dim, UniquenessCheck check, int searches, ProgressListener listener)
+	{
+		return generate(dim, check, GenerationStrategy.ADD_GIVENS, searches, listener, new AtomicBoolean(false));
+	}
+
+	/**
+	 * Generates a puzzle with the chosen strategy.
+	 * 
+	 * @param dim      dimension of the puzzle, must be a perfect square
+	 * @param check    how to decide that the puzzle is unique
+	 * @param strategy how to build the puzzle
+	 * @param searches number of searches to race
+	 * @param listener receives progress from every search, or null
+	 * @return the puzzle, or null if generation hit a dead end
+	 */
+	public static Puzzle generate(int dim, UniquenessCheck check, GenerationStrategy strategy, int searches, ProgressListener listener)
+	{
+		return generate(dim, check, strategy, searches, listener, new AtomicBoolean(false));
+	}
+
+	/**
+	 * Generates a puzzle in the background.
+	 * The future completes with the puzzle, or exceptionally with a GenerationException
+	 * once the deadline passes, the token is cancelled or every search hits a dead end.
+	 * Cancelling the future itself also stops the searches.
+	 * 
+	 * @param dim      dimension of the puzzle, must be a perfect square
+	 * @param check    how to decide that the puzzle is unique
+	 * @param searches number of searches to race
+	 * @param deadline when to give up
+	 * @param token    stops generation once cancelled
+	 * @param listener receives progress from every search, or null
+	 */
+	public static CompletableFuture<Puzzle> generateAsync(int dim, UniquenessCheck check, int searches, Instant deadline,
+														  CancellationToken token, ProgressListener listener)
+	{
+		return generateAsync(dim, check, GenerationStrategy.ADD_GIVENS, searches, deadline, token, listener);
+	}
+
+	/**
+	 * Generates a puzzle in the background with the chosen strategy.
+	 * 
+	 * @param dim      dimension of the puzzle, must be a perfect square
+	 * @param check    how to decide that the puzzle is unique
+	 * @param strategy how to build the puzzle
+	 * @param searches number of searches to race
+	 * @param deadline when to give up
+	 * @param token    stops generation once cancelled
+	 * @param listener receives progress from every search, or null
+	 * @see #generateAsync(int, UniquenessCheck, int, Instant, CancellationToken, ProgressListener)
+	 */
+	public static CompletableFuture<Puzzle> generateAsync(int dim, UniquenessCheck check, GenerationStrategy strategy, int searches,
+														  Instant deadline, CancellationToken token, ProgressListener listener)
+	{
+		CompletableFuture<Puzzle>	result		= new CompletableFuture<Puzzle>();
+		AtomicBoolean				stop		= new AtomicBoolean(false);
+		AtomicBoolean				timedOut	= new AtomicBoolean(false);
+		long						start		= System.nanoTime();
+
+		long				delay	= Math.max(0, Duration.between(Instant.now(), deadline).toNanos());
+		ScheduledFuture<?>	timer	= DEADLINES.schedule(() -> {
+			timedOut.set(true);
+			stop.set(true);
+		}, delay, TimeUnit.NANOSECONDS);
+
+		token.onCancel(() -> stop.set(true));
+		result.whenComplete((puzzle, failure) -> {
+			stop.set(true);
+			timer.cancel(false);
+		});
+
+		POOL.execute(() -> {
+			try
+			{
+				Puzzle puzzle = generate(dim, check, strategy, searches, listener, stop);
+				if(puzzle != null)
+					result.complete(puzzle);
+				else
+				{
+					GenerationException.Reason reason;
+					if(token.isCancelled())
+						reason = GenerationException.Reason.CANCELLED;
+					else if(timedOut.get())
+						reason = GenerationException.Reason.TIMED_OUT;
+					else
+						reason = GenerationException.Reason.DEAD_END;
+					result.completeExceptionally(new GenerationException(reason, dim, System.nanoTime() - start));
+				}
+			}
+			catch(Throwable t)
+			{
+				result.completeExceptionally(t);
+			}
+		});
+
+		return result;
+	}
+
+	/**
+	 * Generates a puzzle until one is found or the stop flag is set.
+	 *
+	 * @return the puzzle, or null if generation was stopped or hit a dead end
+	 */
+	static Puzzle generate(int dim, UniquenessCheck check, GenerationStrategy strategy, int searches, ProgressListener listener,
+								   AtomicBoolean stop)
+	{
+		GenerationEvent event = new GenerationEvent();
+		event.begin();
+
+		if(listener != null)
+			listener.started(dim);
+
+		PuzzleGenerator generator = null;
+		try
+		{
+			if(searches > 1)
+				generator = race(dim, check, strategy, searches, listener, stop);
+			else
+			{
+				generator = new PuzzleGenerator(dim, check, strategy, new Random().nextLong(), stop);
+				generator.setProgressListener(listener);
+				if(!generator.generate())
+					generator = null;
+			}
+		}
+		finally
+		{
+			if(listener != null)
+				listener.finished();
+
+			if(event.shouldCommit())
+			{
+				event.dimension			= dim;
+				event.uniquenessCheck	= check.name();
+				event.strategy			= strategy.name();
+				event.searches			= searches;
+				if(generator != null)
+				{
+					event.givens		= generator.numOfElems;
+					event.backtracks	= generator.stats.getBacktracks();
+					event.outcome		= "GENERATED";
+				}
+				else
+					event.outcome		= stop.get() ? "STOPPED" : "DEAD_END";
+				event.commit();
+			}
+		}
+
+		return generator == null ? null : generator.toPuzzle();
+	}
+
+	/**
+	 * Returns the uniqueness check used when none is chosen.
+	 * Exact cover scales better from dimension 16 up.
+	 * 
+	 * @param dim dimension of the puzzle
+	 */
+	public static UniquenessCheck defaultCheck(int dim)
+	{
+		return dim >= 16 ? UniquenessCheck.EXACT_COVER : UniquenessCheck.SOLUTION_COUNT;
+	}
+
+	/**
+	 * Returns the number of searches raced when none is chosen.
+	 * Small puzzles finish too quickly to be worth racing.
+	 * 
+	 * @param dim dimension of the puzzle
+	 */
+	public static int defaultSearches(int dim)
+	{
+		return dim >= 16 ? Runtime.getRuntime().availableProcessors() : 1;
+	}
+
+	/**
+	 * Runs several searches with different seeds at the same time.
+	 * The first search to find a unique puzzle wins, and the others are cancelled.
+	 *
+	 * @param dim      dimension of the puzzle, must be a perfect square
+	 * @param check    how to decide that the puzzle is unique
+	 * @param searches number of searches to run
+	 * @param listener receives progress from every search, or null
+	 * @return the winning search, or null if every search hit a dead end
+	 */
+	public static PuzzleGenerator race(int dim, UniquenessCheck check, int searches, ProgressListener listener)
+	{
+		return race(dim, check, GenerationStrategy.ADD_GIVENS, searches, listener, new AtomicBoolean(false));
+	}
+
+	/**
+	 * Races searches that all stop once the done flag is set, by the winner or by the caller.
+	 */
+	private static PuzzleGenerator race(int dim, UniquenessCheck check, GenerationStrategy strategy, int searches, ProgressListener listener,
+										AtomicBoolean done)
+	{
+		AtomicInteger						remaining	= new AtomicInteger(searches);
+		CompletableFuture<PuzzleGenerator>	winner		= new CompletableFuture<PuzzleGenerator>();
+		Random								seeds		= new Random();
+
+		for(int i = 0; i < searches; i++)
+		{
+			PuzzleGenerator generator = new PuzzleGenerator(dim, check, strategy, seeds.nextLong(), done);
+			generator.setProgressListener(listener);
+			POOL.execute(() -> {
+				try
+				{
+					if(generator.generate())
+					{
+						done.set(true);
+						winner.complete(generator);
+					}
+				}
+				catch(RuntimeException e)
+				{
+					done.set(true);
+					winner.completeExceptionally(e);
+				}
+				finally
+				{
+					if(remaining.decrementAndGet() == 0)
+						winner.complete(null);
+				}
+			});
+		}
+
+		return winner.join();
+	}
+
+	/**
+	 * Generates the puzzle randomly.
+	 * Uses constraint satisfaction and backtracking to generate the puzzle, and
+	 * constraint propagation arc consistency to catch errors and check for unique solutions.
+	 * Once a unique solution is guaranteed, an answer key is generated for efficiency.
+	 *
+	 * Each given is applied to the constraint store as one level, so backtracking over
+	 * elemOrder pops the store's trail instead of recomputing every domain.
+	 *
+	 * The search is counted in the GenerationMetrics of its dimension while it runs.
+	 *
+	 * @return true if a unique puzzle was generated, false if the search was cancelled or hit a dead end
+	 */
+	public boolean generate()
+	{
+		GenerationMetrics	metrics		= GenerationMetrics.of(dimension);
+		boolean				generated	= false;
+
+		metrics.started(stats);
+		try
+		{
+			if(strategy == GenerationStrategy.DIG_HOLES)
+				generated = digHoles();
+			else
+				generated = search();
+		}
+		finally
+		{
+			metrics.finished(stats, generated);
+		}
+		return generated;
+	}
+
+	/**
+	 * Places givens until the puzzle is unique, backtracking over elemOrder on errors.
+	 */
+	private boolean search()
+	{
+		int tempIndex;
+
+		// Start generation at random cell
+		tempIndex					= rand.nextInt(dimension*dimension);
+		elemOrder[numOfElems++]		= tempIndex;
+		untried[tempIndex]			= store.getDomain(tempIndex);
+
+		// Fill in given cells until puzzle has a unique solution
+		int solvable = placeElem(tempIndex, takeCandidate(tempIndex));
+		while(true)
+		{
+			// Another search already finished
+			if(cancelled.get())
+				return false;
+
+			// Puzzle is unsolvable
+			if(solvable == -1)
+			{
+				long start = System.nanoTime();
+
+				// Take back the failed value
+				tempIndex = store.undo();
+				board.setValue(tempIndex, Board.EMPTY);
+
+				// If current cell's usable domain options are exhausted, backtrack
+				while(untried[tempIndex] == 0)
+				{
+					numOfElems--;
+					stats.backtracks++;
+
+					if(numOfElems == 0)
+					{
+						stats.backtrackingNanos += System.nanoTime() - start;
+						return false;
+					}
+
+					tempIndex = store.undo();
+					board.setValue(tempIndex, Board.EMPTY);
+
+					if(listener != null)
+						listener.backtracked(numOfElems - 1);
+				}
+				stats.backtrackingNanos += System.nanoTime() - start;
+
+				// Try another usable domain value
+				solvable = placeElem(tempIndex, takeCandidate(tempIndex));
+				continue;
+			}
+			// Puzzle can be solved, but does not have a unique solution
+			if(solvable == 0)
+			{
+				// Pick an empty cell that propagation has not already pinned
+				do
+				{
+					tempIndex = rand.nextInt(dimension*dimension);
+				}
+				while(store.getValue(tempIndex) != -1 || Long.bitCount(store.getDomain(tempIndex)) <= 1);
+
+				elemOrder[numOfElems++]	= tempIndex;
+				untried[tempIndex]		= store.getDomain(tempIndex);
+
+				solvable = placeElem(tempIndex, takeCandidate(tempIndex));
+				continue;
+			}
+			// Puzzle has a unique solution
+			if(solvable == 1)
+			{
+				return true;
+			}
+			else
+			{
+				throw new IllegalStateException("Unexpected propagation status: " + solvable);
+			}
+		}
+	}
+
+	/**
+	 * Fills a complete random grid, then removes its cells in random order, putting a
+	 * cell back whenever removing it would leave more than one solution.
+	 * The cells kept become the givens, in the order they were decided.
+	 *
+	 * Proving that a sparse board is unique can take the solver minutes from 25x25 up,
+	 * so each check gets a node budget. A check that runs out keeps the cell, which
+	 * leaves a few more givens but never a puzzle with a second solution.
+	 *
+	 * @return true if a unique puzzle was generated, false if the search was cancelled
+	 */
+	private boolean digHoles()
+	{
+		int cells = dimension*dimension;
+
+		if(!fillGrid())
+			return false;
+
+		if(dancingLinks != null)
+			dancingLinks.setNodeLimit(DIG_NODES_PER_CELL*cells);
+		solutionCounter.setNodeLimit(DIG_NODES_PER_CELL*cells);
+
+		// Visit every cell once in random order
+		int[] order = new int[cells];
+		for(int cell = 0; cell < cells; cell++)
+		{
+			order[cell] = cell;
+		}
+		for(int i = cells - 1; i > 0; i--)
+		{
+			int j		= rand.nextInt(i + 1);
+			int swap	= order[i];
+			order[i]	= order[j];
+			order[j]	= swap;
+		}
+
+		for(int i = 0; i < cells; i++)
+		{
+			if(cancelled.get())
+				return false;
+
+			int cell	= order[i];
+			int value	= board.getValue(cell);
+
+			board.setValue(cell, Board.EMPTY);
+			if(!isUnique())
+			{
+				board.setValue(cell, value);
+				elemOrder[numOfElems++] = cell;
+
+				if(listener != null)
+					listener.placed(numOfElems);
+			}
+		}
+
+		return !cancelled.get();
+	}
+
+	/**
+	 * Fills the board and its answer key with a random complete grid.
+	 * The regions on the diagonal share no row or column, so they are filled with
+	 * independent random permutations and the exact cover solver completes the rest.
+	 * Small boards cannot always be completed that way, so the regions are redrawn until one can.
+	 *
+	 * From PATTERN_GRID_MIN_DIMENSION up the solver may not complete the regions in any
+	 * reasonable time, so the grid comes from the SolutionGridFactory instead. Those grids
+	 * are all the same grid up to symmetry.
+	 *
+	 * @return false if the search was cancelled
+	 */
+	private boolean fillGrid()
+	{
+		int[] grid;
+		if(dimension >= PATTERN_GRID_MIN_DIMENSION)
+			grid = SolutionGridFactory.create(dimension, rand);
+		else
+		{
+			int sqrt = topology.getSqrt();
+
+			dancingLinks.setNodeLimit(Long.MAX_VALUE);
+			do
+			{
+				if(cancelled.get())
+					return false;
+
+				Arrays.fill(givens, Board.EMPTY);
+				for(int box = 0; box < sqrt; box++)
+				{
+					int[] unit = topology.getUnits()[2*dimension + box*sqrt + box];
+
+					tempDomain.setBits(CandidateSet.fullMask(dimension));
+					for(int cell : unit)
+					{
+						givens[cell] = tempDomain.removeAt(rand.nextInt(tempDomain.size()));
+					}
+				}
+			}
+			while(dancingLinks.countSolutions(givens, 1) != 1);
+
+			grid = dancingLinks.getSolution();
+		}
+
+		for(int cell = 0; cell < dimension*dimension; cell++)
+		{
+			board.setValue(cell, grid[cell]);
+			board.setSolution(cell, grid[cell]);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks that the board has exactly one solution with the selected uniqueness check.
+	 * With PROPAGATION the constraint store is rebuilt from the current givens, and the
+	 * puzzle only counts as unique if propagation alone solves it.
+	 */
+	private boolean isUnique()
+	{
+		board.copyValues(givens);
+		stats.solvableChecks++;
+		stats.startUniqueness();
+
+		boolean unique;
+		if(uniquenessCheck == UniquenessCheck.PROPAGATION)
+		{
+			while(store.getLevel() > 0)
+			{
+				store.undo();
+			}
+			for(int cell = 0; cell < dimension*dimension && store.getStatus() != -1; cell++)
+			{
+				if(givens[cell] != Board.EMPTY)
+					store.assign(cell, givens[cell]);
+			}
+			unique = store.getStatus() == 1;
+		}
+		else if(uniquenessCheck == UniquenessCheck.EXACT_COVER)
+			unique = dancingLinks.countSolutions(givens, 2) == 1 && !dancingLinks.isAborted();
+		else
+			unique = solutionCounter.countSolutions(givens, 2) == 1 && !solutionCounter.isAborted();
+
+		stats.finishUniqueness();
+		return unique;
+	}
+
+	/**
+	 * Sets a given and applies it to the constraint store.
+	 * Recorded as a SolvableCheckEvent when a flight recording is running.
+	 *
+	 * @param cell  index of the cell (row * dimension + col)
+	 * @param value value to set
+	 * @return the result of the uniqueness check
+	 */
+	private int placeElem(int cell, int value)
+	{
+		SolvableCheckEvent	event	= new SolvableCheckEvent();
+		long				arcs	= stats.arcs;
+		event.begin();
+
+		long start = System.nanoTime();
+		board.setValue(cell, value);
+		store.assign(cell, value);
+		stats.propagationNanos += System.nanoTime() - start;
+		stats.placed++;
+
+		if(listener != null)
+			listener.placed(numOfElems);
+
+		int solvable = checkUniqueness();
+		if(event.shouldCommit())
+		{
+			event.dimension	= dimension;
+			event.givens	= numOfElems;
+			event.arcs		= stats.arcs - arcs;
+			event.result	= solvable;
+			event.commit();
+		}
+		return solvable;
+	}
+
+	/**
+	 * Removes a random value from the values a cell has left to try.
+	 *
+	 * @param cell index of the cell (row * dimension + col)
+	 * @return the removed value
+	 */
+	private int takeCandidate(int cell)
+	{
+		tempDomain.setBits(untried[cell]);
+		int value		= tempDomain.removeAt(rand.nextInt(tempDomain.size()));
+		untried[cell]	= tempDomain.getBits();
+		return value;
+	}
+
+	/**
+	 * Places givens on an empty search without checking uniqueness.
+	 * Used to set up benchmarks from a known board.
+	 *
+	 * @param board cell values indexed by row * dimension + col, -1 for empty cells
+	 */
+	void loadGivens(int[] board)
+	{
+		for(int cell = 0; cell < dimension*dimension; cell++)
+		{
+			if(board[cell] == -1)
+				continue;
+
+			this.board.setValue(cell, board[cell]);
+			elemOrder[numOfElems++] = cell;
+			store.assign(cell, board[cell]);
+		}
+	}
+
+	/**
+	 * Checks for errors and a unique solution using the selected uniqueness check.
+	 * Constraint propagation runs first to catch errors cheaply. When it cannot decide,
+	 * the solution counter or the exact cover solver settles it by searching for
+	 * a second solution.
+	 */
+	int checkUniqueness()
+	{
+		int solvable = isSolvable();
+
+		if(solvable != 0 || uniquenessCheck == UniquenessCheck.PROPAGATION)
+			return solvable;
+
+		board.copyValues(givens);
+
+		int		solutions;
+		int[]	answer;
+		boolean	aborted;
+		stats.startUniqueness();
+		if(uniquenessCheck == UniquenessCheck.EXACT_COVER)
+		{
+			solutions	= dancingLinks.countSolutions(givens, 2);
+			answer		= dancingLinks.getSolution();
+			aborted		= dancingLinks.isAborted();
+		}
+		else
+		{
+			solutions	= solutionCounter.countSolutions(givens, 2);
+			answer		= solutionCounter.getSolution();
+			aborted		= solutionCounter.isAborted();
+		}
+		stats.finishUniqueness();
+
+		// A search cut short proves nothing, so keep adding givens
+		if(aborted)
+			return 0;
+
+		switch(solutions)
+		{
+			case 0:
+				return -1;
+			case 1:
+				for(int cell = 0; cell < dimension*dimension; cell++)
+				{
+					board.setSolution(cell, answer[cell]);
+				}
+				return 1;
+			default:
+				return 0;
+		}
+	}
+
+	/**
+	 * Checks for errors and a unique solution.
+	 * Reads the result of constraint propagation from the constraint store.
+	 * Once a unique solution is guaranteed, an answer key is generated for efficiency.
+	 */
+	int isSolvable()
+	{
+		stats.solvableChecks++;
+		int solvable = store.getStatus();
+
+		if(solvable == 1)
+		{
+			for(int cell = 0; cell < dimension*dimension; cell++)
+			{
+				board.setSolution(cell, Long.numberOfTrailingZeros(store.getDomain(cell)) + 1);
+			}
+		}
+
+		return solvable;
+	}
+
+	/**
+	 * Returns the set of available domain values for the given cell based on its constraints.
+	 */
+	CandidateSet getUsableDomain(int row, int col)
+	{
+		long	used	= 0L;
+
+		// Collect row, col and region constraints, visiting each peer once
+		for(int peer : topology.getPeers(row*dimension + col))
+		{
+			if(board.getValue(peer) != Board.EMPTY)
+				used |= CandidateSet.maskOf(board.getValue(peer));
+		}
+
+		// Remove constraints from domain
+		return new CandidateSet(CandidateSet.fullMask(dimension) & ~used);
+	}
+
+	/**
+	 * Originally used minimum remaining values, but switched to random to generate more interesting puzzles.
+	 */
+	private int getMostConstrained()
+	{
+		int						tempIndexLoc;
+		CandidateSet			tempDomainLoc;
+		ArrayList<Integer>		mostConstrained = new ArrayList<Integer>();
+
+		for(int row = 0; row < dimension; row++)
+		{
+			for(int col = 0; col < dimension; col++)
+			{
+				if(board.isEmpty(row, col))
+				{
+					tempIndexLoc = row*dimension + col;
+					tempDomainLoc = getUsableDomain(row, col);
+
+					if(mostConstrained.isEmpty() || Long.bitCount(untried[mostConstrained.get(0)]) == tempDomainLoc.size())
+					{
+						untried[tempIndexLoc] = tempDomainLoc.getBits();
+						mostConstrained.add(tempIndexLoc);
+					}
+					else if(Long.bitCount(untried[mostConstrained.get(0)]) > tempDomainLoc.size())
+					{
+						mostConstrained.clear();
+						untried[tempIndexLoc] = tempDomainLoc.getBits();
+						mostConstrained.add(tempIndexLoc);
+					}
+				}
+			}
+		}
+
+		tempIndexLoc = mostConstrained.get(rand.nextInt(mostConstrained.size()));
+		return tempIndexLoc;
+	}
+
+
+	/**
+	 * Hands the finished board and given order over to a puzzle,
+	 * leaving the search state behind.
+	 */
+	public Puzzle toPuzzle()
+	{
+		return new Puzzle(board, getElemOrder());
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the generated board, with the answer key once generation has finished
+	 */
+	public Board getBoard() {
+		return board;
+	}
+
+	/**
+	 * @return indices of the given cells in the order they were placed
+	 */
+	public int[] getElemOrder() {
+		return Arrays.copyOf(elemOrder, numOfElems);
+	}
+
+	/**
+	 * @return the dimension
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return the counters of this search
+	 */
+	public GenerationStats getStats() {
+		return stats;
+	}
+
+	/**
+	 * @param listener receives progress from this search, or null for none
+	 */
+	public void setProgressListener(ProgressListener listener) {
+		this.listener = listener;
+	}
+}
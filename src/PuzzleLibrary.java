@@ -0,0 +1,270 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author Joshua Boone
+ *
+ * A file of puzzles of one dimension, read through a memory map.
+ *
+ * The file starts with a fixed header:
+ *
+ *     offset  size
+ *          0     4  magic "SDKL"
+ *          4     2  format version
+ *          6     2  dimension
+ *          8     1  bits per cell
+ *          9     3  reserved
+ *         12     4  record size in bytes
+ *         16     8  number of records
+ *         24     8  creation time, epoch milliseconds
+ *
+ * followed by fixed-size records, one per puzzle. A record is the givens mask, one bit per
+ * cell, then the answer key packed at ceil(log2(dimension + 1)) bits per cell, both in
+ * row-major order with the lowest bit first. Given values are the answer key under the
+ * mask, so they are not stored twice. A 9x9 puzzle takes 52 bytes.
+ *
+ * Puzzle #k starts at HEADER_SIZE + k * record size, so loading one reads its bits straight
+ * out of the mapped file into the board of the new game without parsing the rest of the
+ * library. The order the givens were placed in is not kept; loaded puzzles list them in
+ * row-major order.
+ *
+ * The map covers the records that were in the file when it was opened; puzzles appended
+ * later need the library to be opened again. A MappedByteBuffer cannot cover more than
+ * 2 GB, which is tens of millions of 9x9 puzzles.
+ *
+ */
+public class PuzzleLibrary
+{
+	static final int		MAGIC			= 0x53444B4C;
+	static final short		VERSION			= 1;
+	static final int		HEADER_SIZE		= 32;
+	static final int		COUNT_OFFSET	= 16;
+
+	private MappedByteBuffer	buffer;
+	private int					dimension;
+	private int					recordSize;
+	private int					count;
+	private long				created;
+
+	/**
+	 * Constructor
+	 * Maps a library file and checks its header.
+	 *
+	 * @param file the library file
+	 * @throws IOException if the file cannot be read or is not a library
+	 */
+	public PuzzleLibrary(Path file) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			long size = channel.size();
+			if(size < HEADER_SIZE)
+				throw new IOException(file + " is not a puzzle library");
+			if(size > Integer.MAX_VALUE)
+				throw new IOException(file + " is too large to map");
+
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			dimension	= readHeader(buffer, file);
+			recordSize	= recordSize(dimension);
+			created		= buffer.getLong(24);
+
+			// Trust the file length over the header if a writer stopped before updating it
+			long records = Math.min(buffer.getLong(COUNT_OFFSET), (size - HEADER_SIZE) / recordSize);
+			count = (int) Math.max(0, records);
+		}
+	}
+
+	/**
+	 * Loads a puzzle into a new board.
+	 *
+	 * @param index number of the puzzle, from 0
+	 * @return the puzzle
+	 * @throws IndexOutOfBoundsException if there is no such puzzle
+	 */
+	public Puzzle get(int index)
+	{
+		if(index < 0 || index >= count)
+			throw new IndexOutOfBoundsException("Puzzle " + index + " of " + count);
+
+		return decode(buffer, HEADER_SIZE + index*recordSize, dimension);
+	}
+
+	/**
+	 * Packs a board into a record: its filled cells as the givens mask, then its answer key.
+	 *
+	 * @param board  the board
+	 * @param buffer buffer to write the record to
+	 * @param base   index of the record in the buffer
+	 */
+	static void encode(Board board, ByteBuffer buffer, int base)
+	{
+		int dim		= board.getDimension();
+		int bits	= bitsPerCell(dim);
+		int keyBase	= base + maskBytes(dim);
+
+		for(int i = base; i < base + recordSize(dim); i++)
+		{
+			buffer.put(i, (byte) 0);
+		}
+		for(int cell = 0; cell < dim*dim; cell++)
+		{
+			if(board.getValue(cell) != Board.EMPTY)
+				buffer.put(base + (cell >>> 3), (byte) (buffer.get(base + (cell >>> 3)) | (1 << (cell & 7))));
+			writeBits(buffer, keyBase, cell*bits, bits, board.getSolution(cell));
+		}
+	}
+
+	/**
+	 * Unpacks a record into a new board.
+	 *
+	 * @param buffer buffer holding the record
+	 * @param base   index of the record in the buffer
+	 * @param dim    dimension of the puzzle
+	 * @return the puzzle, with its givens in row-major order
+	 */
+	static Puzzle decode(ByteBuffer buffer, int base, int dim)
+	{
+		int		cells		= dim*dim;
+		int		bits		= bitsPerCell(dim);
+		int		keyBase		= base + maskBytes(dim);
+		Board	board		= new Board(dim);
+		int[]	elemOrder	= new int[countGivens(buffer, base, dim)];
+		int		givens		= 0;
+
+		for(int cell = 0; cell < cells; cell++)
+		{
+			int value = readBits(buffer, keyBase, cell*bits, bits);
+			board.setSolution(cell, value);
+
+			if((buffer.get(base + (cell >>> 3)) & (1 << (cell & 7))) != 0)
+			{
+				board.setValue(cell, value);
+				elemOrder[givens++] = cell;
+			}
+		}
+		return new Puzzle(board, elemOrder);
+	}
+
+	/**
+	 * Counts the set bits of a givens mask.
+	 */
+	private static int countGivens(ByteBuffer buffer, int base, int dim)
+	{
+		int givens	= 0;
+		int bytes	= maskBytes(dim);
+		for(int i = 0; i < bytes; i++)
+		{
+			givens += Integer.bitCount(buffer.get(base + i) & 0xFF);
+		}
+		return givens;
+	}
+
+	/**
+	 * Checks the magic and version of a header.
+	 *
+	 * @return the dimension of the library
+	 */
+	static int readHeader(ByteBuffer header, Path file) throws IOException
+	{
+		if(header.getInt(0) != MAGIC)
+			throw new IOException(file + " is not a puzzle library");
+		if(header.getShort(4) != VERSION)
+			throw new IOException(file + " has unsupported library version " + header.getShort(4));
+
+		int dim = header.getShort(6);
+		if(GameState.checkDimension(dim) != dim || header.get(8) != bitsPerCell(dim) || header.getInt(12) != recordSize(dim))
+			throw new IOException(file + " has a corrupt header");
+		return dim;
+	}
+
+	/**
+	 * @param dim dimension of the puzzles
+	 * @return bits needed for the values 0 to dimension
+	 */
+	static int bitsPerCell(int dim)
+	{
+		return 32 - Integer.numberOfLeadingZeros(dim);
+	}
+
+	/**
+	 * @param dim dimension of the puzzles
+	 * @return bytes of the givens mask of a record
+	 */
+	static int maskBytes(int dim)
+	{
+		return (dim*dim + 7) / 8;
+	}
+
+	/**
+	 * @param dim dimension of the puzzles
+	 * @return bytes of one record
+	 */
+	static int recordSize(int dim)
+	{
+		return maskBytes(dim) + (dim*dim*bitsPerCell(dim) + 7) / 8;
+	}
+
+	/**
+	 * Reads a value of up to 8 bits that starts at a bit offset from base.
+	 */
+	static int readBits(ByteBuffer buffer, int base, int bit, int bits)
+	{
+		int index	= base + (bit >>> 3);
+		int shift	= bit & 7;
+		int word	= buffer.get(index) & 0xFF;
+		if(shift + bits > 8)
+			word |= (buffer.get(index + 1) & 0xFF) << 8;
+		return (word >>> shift) & ((1 << bits) - 1);
+	}
+
+	/**
+	 * Ors a value of up to 8 bits into the bits at an offset from base, which must be clear.
+	 */
+	static void writeBits(ByteBuffer buffer, int base, int bit, int bits, int value)
+	{
+		int index	= base + (bit >>> 3);
+		int shift	= bit & 7;
+		int word	= value << shift;
+		buffer.put(index, (byte) (buffer.get(index) | word));
+		if(shift + bits > 8)
+			buffer.put(index + 1, (byte) (buffer.get(index + 1) | (word >>> 8)));
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the dimension of every puzzle in the library
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return the number of puzzles
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * @return the size of one record in bytes
+	 */
+	public int getRecordSize() {
+		return recordSize;
+	}
+
+	/**
+	 * @return when the library was created, in epoch milliseconds
+	 */
+	public long getCreated() {
+		return created;
+	}
+}
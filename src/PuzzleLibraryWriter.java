@@ -0,0 +1,162 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author Joshua Boone
+ *
+ * Appends puzzles to a PuzzleLibrary file, creating it if it does not exist.
+ *
+ * Records are packed into a buffer and written in large blocks. The record count in the
+ * header is updated whenever the buffer is flushed and on close, so a reader opened in
+ * between sees every complete record written so far. A record left half written by a
+ * crash is ignored by readers and overwritten by the next writer.
+ *
+ * Not thread-safe; it is meant to be owned by the one thread that writes the puzzles.
+ *
+ */
+public class PuzzleLibraryWriter implements Closeable
+{
+	private static final int	BUFFER_SIZE = 1 << 16;
+
+	private FileChannel			channel;
+	private ByteBuffer			buffer;
+	private ByteBuffer			countField;
+
+	private int					dimension;
+	private int					bitsPerCell;
+	private int					recordSize;
+	private long				count;
+
+	/**
+	 * Constructor
+	 *
+	 * @param file library to append to; created with a new header if it does not exist
+	 * @param dim  dimension of the puzzles, must match an existing library
+	 * @throws IOException if the file cannot be opened or holds another dimension
+	 */
+	public PuzzleLibraryWriter(Path file, int dim) throws IOException
+	{
+		dimension	= dim;
+		bitsPerCell	= PuzzleLibrary.bitsPerCell(dim);
+		recordSize	= PuzzleLibrary.recordSize(dim);
+		channel		= FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		countField	= ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+
+		try
+		{
+			ByteBuffer header = ByteBuffer.allocate(PuzzleLibrary.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			if(channel.size() == 0)
+			{
+				header.putInt(0, PuzzleLibrary.MAGIC);
+				header.putShort(4, PuzzleLibrary.VERSION);
+				header.putShort(6, (short) dim);
+				header.put(8, (byte) bitsPerCell);
+				header.putInt(12, recordSize);
+				header.putLong(PuzzleLibrary.COUNT_OFFSET, 0);
+				header.putLong(24, System.currentTimeMillis());
+				writeFully(header, 0);
+			}
+			else
+			{
+				while(header.hasRemaining())
+				{
+					if(channel.read(header, header.position()) < 0)
+						break;
+				}
+				if(header.hasRemaining())
+					throw new IOException(file + " is not a puzzle library");
+				if(PuzzleLibrary.readHeader(header, file) != dim)
+					throw new IOException(file + " holds puzzles of dimension " + header.getShort(6) + ", not " + dim);
+
+				count = Math.min(header.getLong(PuzzleLibrary.COUNT_OFFSET), (channel.size() - PuzzleLibrary.HEADER_SIZE) / recordSize);
+			}
+		}
+		catch(IOException e)
+		{
+			channel.close();
+			throw e;
+		}
+
+		buffer = ByteBuffer.allocate(Math.max(BUFFER_SIZE, recordSize) / recordSize * recordSize);
+	}
+
+	/**
+	 * Appends a puzzle.
+	 *
+	 * @param puzzle the puzzle, of the library's dimension
+	 */
+	public void append(Puzzle puzzle) throws IOException
+	{
+		Board board = puzzle.getBoard();
+		if(board.getDimension() != dimension)
+			throw new IllegalArgumentException("Puzzle of dimension " + board.getDimension() + " in a library of dimension " + dimension);
+
+		if(buffer.remaining() < recordSize)
+			flush();
+
+		int base = buffer.position();
+		PuzzleLibrary.encode(board, buffer, base);
+		buffer.position(base + recordSize);
+	}
+
+	/**
+	 * Writes out the buffered records and updates the record count in the header.
+	 */
+	public void flush() throws IOException
+	{
+		int records = buffer.position() / recordSize;
+		if(records == 0)
+			return;
+
+		buffer.flip();
+		writeFully(buffer, PuzzleLibrary.HEADER_SIZE + count*recordSize);
+		buffer.clear();
+
+		count += records;
+		countField.clear();
+		countField.putLong(0, count);
+		writeFully(countField, PuzzleLibrary.COUNT_OFFSET);
+	}
+
+	/**
+	 * Writes out the buffered records and closes the file.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			flush();
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	/**
+	 * Writes all of a buffer at a position in the file.
+	 */
+	private void writeFully(ByteBuffer source, long position) throws IOException
+	{
+		while(source.hasRemaining())
+		{
+			position += channel.write(source, position);
+		}
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the number of puzzles in the library, including ones not flushed yet
+	 */
+	public long size() {
+		return count + buffer.position() / recordSize;
+	}
+}
@@ -0,0 +1,292 @@
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author Joshua Boone
+ *
+ * Bounded pool of ready puzzles for one dimension.
+ *
+ * Worker threads refill the pool in the background: once the number of ready puzzles
+ * drops below the low watermark, they generate until it reaches the high watermark
+ * and then wait again. A worker reserves a slot before it starts generating, so the
+ * workers together never generate more puzzles than the pool can hold. Taking a puzzle
+ * is a constant time poll; when the pool is empty the puzzle is generated on the calling
+ * thread instead.
+ *
+ */
+public class PuzzlePool
+{
+	private int							dimension;
+	private int							lowWatermark;
+	private int							highWatermark;
+
+	private ArrayBlockingQueue<Puzzle>	ready;
+	private Thread[]					workers;
+	private AtomicBoolean				stopped;
+
+	private ReentrantLock				lock;
+	private Condition					belowLow;
+	private boolean						refilling;
+	private int							reserved;
+
+	private AtomicLong					hits;
+	private AtomicLong					misses;
+	private AtomicLong					refills;
+	private AtomicLong					refillNanos;
+	private AtomicLong					maxRefillNanos;
+	private AtomicLong					failures;
+	private volatile RuntimeException	lastFailure;
+
+	/**
+	 * Constructor
+	 * Starts the worker threads, which fill the pool up to the high watermark right away.
+	 *
+	 * @param dim     dimension of the pooled puzzles, must be a perfect square
+	 * @param low     refill once fewer puzzles than this are ready
+	 * @param high    stop refilling once this many puzzles are ready
+	 * @param threads number of worker threads
+	 */
+	public PuzzlePool(int dim, int low, int high, int threads)
+	{
+		dimension		= dim;
+		highWatermark	= Math.max(1, high);
+		lowWatermark	= Math.min(Math.max(1, low), highWatermark);
+
+		ready			= new ArrayBlockingQueue<Puzzle>(highWatermark);
+		lock			= new ReentrantLock();
+		belowLow		= lock.newCondition();
+		refilling		= true;
+		stopped			= new AtomicBoolean();
+
+		hits			= new AtomicLong();
+		misses			= new AtomicLong();
+		refills			= new AtomicLong();
+		refillNanos		= new AtomicLong();
+		maxRefillNanos	= new AtomicLong();
+		failures		= new AtomicLong();
+
+		workers = new Thread[Math.max(1, threads)];
+		for(int i = 0; i < workers.length; i++)
+		{
+			workers[i] = new Thread(this::refill, "puzzle-pool-" + dim + "-" + i);
+			workers[i].setDaemon(true);
+			workers[i].setPriority(Thread.MIN_PRIORITY);
+			workers[i].start();
+		}
+	}
+
+	/**
+	 * Takes a ready puzzle, or generates one on the calling thread if the pool is empty.
+	 *
+	 * @return a puzzle, or null if on-demand generation hit a dead end
+	 */
+	public Puzzle take()
+	{
+		return take(null);
+	}
+
+	/**
+	 * Takes a ready puzzle, or generates one on the calling thread if the pool is empty.
+	 *
+	 * @param listener receives progress if the puzzle has to be generated, or null
+	 * @return a puzzle, or null if on-demand generation hit a dead end
+	 */
+	public Puzzle take(ProgressListener listener)
+	{
+		Puzzle puzzle = poll();
+		if(puzzle != null)
+			return puzzle;
+
+		return PuzzleGenerator.generate(dimension, PuzzleGenerator.defaultCheck(dimension), PuzzleGenerator.defaultSearches(dimension), listener);
+	}
+
+	/**
+	 * Takes a ready puzzle without ever generating one.
+	 *
+	 * @return a puzzle, or null if the pool is empty
+	 */
+	public Puzzle poll()
+	{
+		Puzzle puzzle = ready.poll();
+
+		if(ready.size() < lowWatermark)
+			startRefill();
+
+		if(puzzle == null)
+			misses.incrementAndGet();
+		else
+			hits.incrementAndGet();
+		return puzzle;
+	}
+
+	/**
+	 * Stops the worker threads, including a generation already running. Puzzles already
+	 * in the pool can still be taken.
+	 */
+	public void shutdown()
+	{
+		stopped.set(true);
+		for(Thread worker : workers)
+		{
+			worker.interrupt();
+		}
+	}
+
+	/**
+	 * Wakes the workers up to refill the pool.
+	 */
+	private void startRefill()
+	{
+		lock.lock();
+		try
+		{
+			refilling = true;
+			belowLow.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Worker loop. Waits for the pool to drop below the low watermark, then generates
+	 * puzzles until the high watermark is reached, counting the slots other workers
+	 * have reserved for the puzzles they are generating. A generation that throws is
+	 * counted as a failure and the worker carries on.
+	 */
+	private void refill()
+	{
+		while(!stopped.get())
+		{
+			lock.lock();
+			try
+			{
+				while(!stopped.get() && (!refilling || ready.size() + reserved >= highWatermark))
+				{
+					belowLow.await();
+				}
+				if(stopped.get())
+					return;
+				reserved++;
+			}
+			catch(InterruptedException e)
+			{
+				return;
+			}
+			finally
+			{
+				lock.unlock();
+			}
+
+			long	start	= System.nanoTime();
+			Puzzle	puzzle	= null;
+			try
+			{
+				puzzle = PuzzleGenerator.generate(dimension, PuzzleGenerator.defaultCheck(dimension), GenerationStrategy.ADD_GIVENS, 1, null, stopped);
+			}
+			catch(RuntimeException e)
+			{
+				// Keep the worker alive; the failure shows in the counters instead
+				failures.incrementAndGet();
+				lastFailure = e;
+			}
+			finally
+			{
+				lock.lock();
+				try
+				{
+					// The reserved slot is still free, since only the workers add puzzles
+					if(puzzle != null)
+						ready.offer(puzzle);
+					reserved--;
+					if(ready.size() >= highWatermark)
+						refilling = false;
+					belowLow.signalAll();
+				}
+				finally
+				{
+					lock.unlock();
+				}
+			}
+
+			if(puzzle == null)
+				continue;
+
+			long elapsed = System.nanoTime() - start;
+			refills.incrementAndGet();
+			refillNanos.addAndGet(elapsed);
+			maxRefillNanos.accumulateAndGet(elapsed, Math::max);
+		}
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the dimension
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return the number of puzzles ready to be taken
+	 */
+	public int getReadyCount() {
+		return ready.size();
+	}
+
+	/**
+	 * @return the number of takes served from the pool
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of takes that had to generate on demand
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return the number of puzzles generated by the workers
+	 */
+	public long getRefills() {
+		return refills.get();
+	}
+
+	/**
+	 * @return the average time a worker took to generate one puzzle, in nanoseconds
+	 */
+	public long getAverageRefillNanos() {
+		long count = refills.get();
+		return count == 0 ? 0 : refillNanos.get() / count;
+	}
+
+	/**
+	 * @return the longest time a worker took to generate one puzzle, in nanoseconds
+	 */
+	public long getMaxRefillNanos() {
+		return maxRefillNanos.get();
+	}
+
+	/**
+	 * @return the number of generations by the workers that failed with an exception
+	 */
+	public long getFailures() {
+		return failures.get();
+	}
+
+	/**
+	 * @return the exception of the latest failed generation, or null if none failed
+	 */
+	public RuntimeException getLastFailure() {
+		return lastFailure;
+	}
+}
@@ -0,0 +1,304 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author Joshua Boone
+ *
+ * Counts the solutions of a puzzle with a backtracking search that stops once
+ * a given number of solutions has been found.
+ * Row, column and region constraints are kept as bitmasks. Values with a single
+ * place left in a unit are placed first, otherwise the cell with the fewest
+ * candidates is branched on.
+ *
+ */
+public class SolutionCounter
+{
+	private int		dimension;
+	private long	fullMask;
+	private Topology	topology;
+
+	private int[]	values;
+	private int[]	solution;
+	private int[]	empty;
+	private int		emptyCount;
+
+	private long[]	rowUsed;
+	private long[]	colUsed;
+	private long[]	regionUsed;
+	private long[]	candidates;
+	private int[][]	units;
+
+	private int		count;
+	private int		limit;
+	private long	nodes;
+	private long	nodeLimit;
+	private boolean	aborted;
+
+	private AtomicBoolean	cancelled;
+
+	/**
+	 * Constructor
+	 *
+	 * @param dim dimension of the puzzles to count
+	 */
+	public SolutionCounter(int dim)
+	{
+		dimension	= dim;
+		nodeLimit	= Long.MAX_VALUE;
+		fullMask	= CandidateSet.fullMask(dim);
+
+		values		= new int[dim*dim];
+		solution	= new int[dim*dim];
+		empty		= new int[dim*dim];
+
+		rowUsed		= new long[dim];
+		colUsed		= new long[dim];
+		regionUsed	= new long[dim];
+		candidates	= new long[dim*dim];
+
+		// Rows, then columns, then regions
+		topology	= Topology.of(dim);
+		units		= topology.getUnits();
+	}
+
+	/**
+	 * Counts the solutions of the given board, stopping at the limit.
+	 *
+	 * @param board cell values indexed by row * dimension + col, -1 for empty cells
+	 * @param max   number of solutions at which to stop counting
+	 * @return the number of solutions found, at most max; only a lower bound if the
+	 *         search was aborted, see isAborted()
+	 */
+	public int countSolutions(int[] board, int max)
+	{
+		count		= 0;
+		limit		= max;
+		nodes		= 0;
+		aborted		= false;
+		emptyCount	= 0;
+
+		for(int i = 0; i < dimension; i++)
+		{
+			rowUsed[i]		= 0L;
+			colUsed[i]		= 0L;
+			regionUsed[i]	= 0L;
+		}
+
+		// Load givens, rejecting boards that already break a constraint
+		for(int cell = 0; cell < dimension*dimension; cell++)
+		{
+			values[cell] = board[cell];
+			if(board[cell] == -1)
+			{
+				empty[emptyCount++] = cell;
+				continue;
+			}
+
+			long mask	= CandidateSet.maskOf(board[cell]);
+			int row		= topology.getRow(cell);
+			int col		= topology.getCol(cell);
+			int region	= topology.getBox(cell);
+
+			if(((rowUsed[row] | colUsed[col] | regionUsed[region]) & mask) != 0)
+				return 0;
+
+			rowUsed[row]		|= mask;
+			colUsed[col]		|= mask;
+			regionUsed[region]	|= mask;
+		}
+
+		search(0);
+		return count;
+	}
+
+	/**
+	 * Fills the remaining empty cells, most constrained first.
+	 * A value that has only one place left in a row, column or region is placed before
+	 * branching, and a value with no place left ends the branch.
+	 *
+	 * @param depth number of empty cells already filled
+	 */
+	private void search(int depth)
+	{
+		nodes++;
+
+		// Stop early once the owning search has been cancelled or the node budget is spent
+		if(nodes > nodeLimit || ((nodes & 1023) == 0 && cancelled != null && cancelled.get()))
+			aborted = true;
+		if(aborted || count >= limit)
+			return;
+
+		if(depth == emptyCount)
+		{
+			if(count == 0)
+				System.arraycopy(values, 0, solution, 0, values.length);
+			count++;
+			return;
+		}
+
+		// Pick the empty cell with the fewest candidates
+		int		best			= depth;
+		long	bestCandidates	= 0L;
+		int		bestSize		= Integer.MAX_VALUE;
+		for(int i = depth; i < emptyCount; i++)
+		{
+			int		cell			= empty[i];
+			int		row				= topology.getRow(cell);
+			int		col				= topology.getCol(cell);
+			long	cellCandidates	= fullMask & ~(rowUsed[row] | colUsed[col] | regionUsed[topology.getBox(cell)]);
+			int		size			= Long.bitCount(cellCandidates);
+
+			candidates[cell] = cellCandidates;
+			if(size < bestSize)
+			{
+				best			= i;
+				bestCandidates	= cellCandidates;
+				bestSize		= size;
+				if(size == 0)
+					return;
+			}
+		}
+
+		// Look for values with one or no place left in a unit
+		if(bestSize > 1)
+		{
+			for(int unit = 0; unit < units.length; unit++)
+			{
+				long once	= 0L;
+				long twice	= 0L;
+				for(int cell : units[unit])
+				{
+					if(values[cell] == -1)
+					{
+						twice	|= once & candidates[cell];
+						once	|= candidates[cell];
+					}
+				}
+
+				long needed = fullMask & ~unitUsed(unit);
+				if((needed & ~once) != 0)
+					return;
+
+				long hidden = needed & once & ~twice;
+				if(hidden != 0)
+				{
+					long mask = hidden & -hidden;
+					for(int cell : units[unit])
+					{
+						if(values[cell] == -1 && (candidates[cell] & mask) != 0)
+						{
+							best			= indexOf(cell, depth);
+							bestCandidates	= mask;
+							break;
+						}
+					}
+					break;
+				}
+			}
+		}
+
+		int cell		= empty[best];
+		empty[best]		= empty[depth];
+		empty[depth]	= cell;
+
+		int row		= topology.getRow(cell);
+		int col		= topology.getCol(cell);
+		int region	= topology.getBox(cell);
+
+		// Try each candidate in turn
+		while(bestCandidates != 0 && count < limit && !aborted)
+		{
+			long mask		= bestCandidates & -bestCandidates;
+			bestCandidates	&= ~mask;
+
+			values[cell]		= Long.numberOfTrailingZeros(mask) + 1;
+			rowUsed[row]		|= mask;
+			colUsed[col]		|= mask;
+			regionUsed[region]	|= mask;
+
+			search(depth + 1);
+
+			rowUsed[row]		&= ~mask;
+			colUsed[col]		&= ~mask;
+			regionUsed[region]	&= ~mask;
+		}
+
+		values[cell]	= -1;
+		empty[depth]	= empty[best];
+		empty[best]		= cell;
+	}
+
+	/**
+	 * Returns the values already placed in a unit.
+	 * Units 0..dimension-1 are rows, then columns, then regions.
+	 */
+	private long unitUsed(int unit)
+	{
+		if(unit < dimension)
+			return rowUsed[unit];
+		if(unit < 2*dimension)
+			return colUsed[unit - dimension];
+		return regionUsed[unit - 2*dimension];
+	}
+
+	/**
+	 * Finds the position of an empty cell in the unfilled part of the empty list.
+	 */
+	private int indexOf(int cell, int depth)
+	{
+		for(int i = depth; i < emptyCount; i++)
+		{
+			if(empty[i] == cell)
+				return i;
+		}
+		return depth;
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the first solution found by the last count, indexed by row * dimension + col
+	 */
+	public int[] getSolution() {
+		return solution;
+	}
+
+	/**
+	 * @return the number of search nodes visited by the last count
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @param cancelled flag that stops counting early once it is set
+	 */
+	public void setCancelled(AtomicBoolean cancelled) {
+		this.cancelled = cancelled;
+	}
+
+	/**
+	 * @return true if the last count stopped early because it was cancelled or ran out
+	 *         of nodes, so its result is not final
+	 */
+	public boolean isAborted() {
+		return aborted;
+	}
+
+	/**
+	 * Caps the search nodes of each count. A count that runs out of nodes stops with the
+	 * solutions found so far and reports itself as aborted.
+	 *
+	 * @param nodeLimit maximum nodes per count, Long.MAX_VALUE for no cap
+	 */
+	public void setNodeLimit(long nodeLimit) {
+		this.nodeLimit = nodeLimit;
+	}
+
+	/**
+	 * @return the dimension
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+}
@@ -0,0 +1,94 @@
+import java.util.Random;
+
+/**
+ * @author Joshua Boone
+ *
+ * Builds random complete grids without searching.
+ *
+ * Starts from the pattern grid, where the cell at (r, c) holds
+ * (sqrt*(r%sqrt) + r/sqrt + c) % dimension + 1, and shuffles it with transforms that
+ * keep every row, column and region valid: relabeling the values, swapping rows within
+ * a band, columns within a stack, whole bands, whole stacks, and transposing.
+ * Every transform is folded into a row map, a column map and a value map, so building
+ * a grid of any perfect-square dimension takes one pass over its cells.
+ *
+ * Because every grid is a transform of the same pattern, all grids of one dimension
+ * have the same CanonicalForm. Use it where speed matters more than variety.
+ *
+ */
+public final class SolutionGridFactory
+{
+	private SolutionGridFactory()
+	{
+	}
+
+	/**
+	 * Returns a random complete grid.
+	 *
+	 * @param dim  dimension of the grid, must be a perfect square
+	 * @param rand source of randomness
+	 * @return cell values indexed by row * dimension + col
+	 */
+	public static int[] create(int dim, Random rand)
+	{
+		int sqrt = (int) Math.sqrt(dim);
+
+		int[] rows		= lineOrder(sqrt, rand);
+		int[] cols		= lineOrder(sqrt, rand);
+		int[] values	= permutation(dim, rand);
+		boolean	transpose	= rand.nextBoolean();
+
+		int[] grid = new int[dim*dim];
+		for(int row = 0; row < dim; row++)
+		{
+			for(int col = 0; col < dim; col++)
+			{
+				int r = transpose ? cols[col] : rows[row];
+				int c = transpose ? rows[row] : cols[col];
+
+				grid[row*dim + col] = values[(sqrt*(r%sqrt) + r/sqrt + c) % dim] + 1;
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * Returns a random order of rows or columns that keeps each band or stack together:
+	 * the bands are shuffled, then the lines within each band.
+	 */
+	private static int[] lineOrder(int sqrt, Random rand)
+	{
+		int[] bands	= permutation(sqrt, rand);
+		int[] order	= new int[sqrt*sqrt];
+
+		for(int band = 0; band < sqrt; band++)
+		{
+			int[] lines = permutation(sqrt, rand);
+			for(int line = 0; line < sqrt; line++)
+			{
+				order[band*sqrt + line] = bands[band]*sqrt + lines[line];
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * Returns a random permutation of 0..size-1.
+	 */
+	private static int[] permutation(int size, Random rand)
+	{
+		int[] perm = new int[size];
+		for(int i = 0; i < size; i++)
+		{
+			perm[i] = i;
+		}
+		for(int i = size - 1; i > 0; i--)
+		{
+			int j		= rand.nextInt(i + 1);
+			int swap	= perm[i];
+			perm[i]		= perm[j];
+			perm[j]		= swap;
+		}
+		return perm;
+	}
+}
@@ -0,0 +1,36 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * @author Joshua Boone
+ *
+ * Flight recorder event for placing one given: propagating it through the constraint
+ * store and checking the board for errors and a unique solution.
+ * Raised many times per generation, so it is recorded without a stack trace.
+ *
+ */
+@Name("sudoku.SolvableCheck")
+@Label("Solvable Check")
+@Category({"Sudoku", "Generation"})
+@Description("Propagation and uniqueness check after a given is placed")
+@StackTrace(false)
+public class SolvableCheckEvent extends Event
+{
+	@Label("Dimension")
+	int		dimension;
+
+	@Label("Givens")
+	int		givens;
+
+	@Label("Arcs Processed")
+	@Description("Peers visited while propagating the given")
+	long	arcs;
+
+	@Label("Result")
+	@Description("-1 if the board has an error, 0 if it has several solutions, 1 if it has exactly one")
+	int		result;
+}
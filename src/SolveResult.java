@@ -0,0 +1,118 @@
+/**
+ * @author Joshua Boone
+ *
+ * What Solver found for a board: whether it has no, one or several solutions, a
+ * solution if there is one, and how much searching it took.
+ *
+ */
+public class SolveResult
+{
+	/**
+	 * How many solutions the board has.
+	 */
+	public enum Verdict
+	{
+		// No solution, including boards whose givens already break a rule
+		NONE,
+		// Exactly one solution, as a puzzle should have
+		UNIQUE,
+		// Two or more solutions; the search stops at the second
+		MULTIPLE
+	}
+
+	private Verdict		verdict;
+	private int[]		solution;
+	private long		nodes;
+	private long		tasks;
+	private long		steals;
+	private int			parallelism;
+	private long		elapsedNanos;
+
+	/**
+	 * Constructor
+	 *
+	 * @param verdict      how many solutions the board has
+	 * @param solution     the first solution found, or null if there is none
+	 * @param nodes        search nodes visited by every task together
+	 * @param tasks        search tasks run
+	 * @param steals       tasks run by another worker than the one that forked them
+	 * @param parallelism  number of workers of the pool
+	 * @param elapsedNanos wall time of the whole solve
+	 */
+	public SolveResult(Verdict verdict, int[] solution, long nodes, long tasks, long steals, int parallelism, long elapsedNanos)
+	{
+		this.verdict		= verdict;
+		this.solution		= solution;
+		this.nodes			= nodes;
+		this.tasks			= tasks;
+		this.steals			= steals;
+		this.parallelism	= parallelism;
+		this.elapsedNanos	= elapsedNanos;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s in %.3f ms: %d nodes, %d tasks, %d stolen, %d workers",
+							 verdict, elapsedNanos / 1e6, nodes, tasks, steals, parallelism);
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return how many solutions the board has
+	 */
+	public Verdict getVerdict() {
+		return verdict;
+	}
+
+	/**
+	 * @return whether the board has exactly one solution
+	 */
+	public boolean isUnique() {
+		return verdict == Verdict.UNIQUE;
+	}
+
+	/**
+	 * @return the first solution found, indexed by row * dimension + col, or null if there is none
+	 */
+	public int[] getSolution() {
+		return solution;
+	}
+
+	/**
+	 * @return the search nodes visited by every task together
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return the number of search tasks run
+	 */
+	public long getTasks() {
+		return tasks;
+	}
+
+	/**
+	 * @return the number of tasks run by another worker than the one that forked them
+	 */
+	public long getSteals() {
+		return steals;
+	}
+
+	/**
+	 * @return the number of workers of the pool
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * @return the wall time of the whole solve in nanoseconds
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+}
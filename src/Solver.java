@@ -0,0 +1,293 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Joshua Boone
+ *
+ * Solves any board of a perfect-square dimension up to 64, finding a solution and
+ * whether it is the only one.
+ *
+ * The search tree is split across a ForkJoinPool. Every task first searches its subtree
+ * on its own with the SolutionCounter, up to LEAF_NODES nodes. Most subtrees are done by
+ * then; one that is not is split on its most constrained empty cell into one task per
+ * candidate, which idle workers steal. The first task runs on the calling thread, so easy
+ * boards never touch the pool, while the
+ * hard subtrees of a large board keep splitting until every core has work. A split throws
+ * away at most LEAF_NODES of work, so the total stays within a small factor of a single
+ * search.
+ *
+ * The search stops everywhere once a second solution is found.
+ *
+ */
+public class Solver
+{
+	// Nodes a task searches on its own before it splits its subtree
+	private static final long	LEAF_NODES = 1 << 14;
+
+	private ForkJoinPool		pool;
+
+	/**
+	 * Constructor
+	 * Solves on the common pool, which has a worker for every core.
+	 */
+	public Solver()
+	{
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param pool pool to run the search tasks on
+	 */
+	public Solver(ForkJoinPool pool)
+	{
+		this.pool = pool;
+	}
+
+	/**
+	 * Usage: Solver [file]
+	 * Reads boards in the format BatchGenerator writes, dimension|givens with anything
+	 * after a second '|' ignored, from the file or standard input, and prints what was
+	 * found for each.
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		Solver solver = new Solver();
+
+		try(BufferedReader in = args.length > 0 ? Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.US_ASCII)
+												: new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII)))
+		{
+			String line;
+			while((line = in.readLine()) != null)
+			{
+				if(line.isBlank())
+					continue;
+
+				String[]	fields	= line.split("\\|");
+				String[]	cells	= fields[1].split(",");
+				int[]		grid	= new int[cells.length];
+				for(int cell = 0; cell < cells.length; cell++)
+				{
+					grid[cell] = Integer.parseInt(cells[cell].trim());
+				}
+
+				System.out.println(solver.solve(grid, Integer.parseInt(fields[0].trim())));
+			}
+		}
+	}
+
+	/**
+	 * Solves a board's current values.
+	 *
+	 * @param board the board
+	 */
+	public SolveResult solve(Board board)
+	{
+		return solve(board.copyValues(new int[board.getSize()]), board.getDimension());
+	}
+
+	/**
+	 * Solves a board.
+	 *
+	 * @param grid cell values indexed by row * dimension + col, -1 or 0 for empty cells
+	 * @param dim  dimension of the board, a perfect square up to 64
+	 * @throws IllegalArgumentException if the dimension, the size of the grid or a value is out of range
+	 */
+	public SolveResult solve(int[] grid, int dim)
+	{
+		int sqrt = (int) Math.sqrt(dim);
+		if(dim < 1 || sqrt*sqrt != dim || dim > CandidateSet.MAX_VALUE)
+			throw new IllegalArgumentException("Dimension must be a perfect square up to " + CandidateSet.MAX_VALUE + ": " + dim);
+		if(grid.length != dim*dim)
+			throw new IllegalArgumentException("A board of dimension " + dim + " has " + dim*dim + " cells, not " + grid.length);
+
+		int[] board = new int[grid.length];
+		for(int cell = 0; cell < grid.length; cell++)
+		{
+			if(grid[cell] < -1 || grid[cell] > dim)
+				throw new IllegalArgumentException("Value out of range at cell " + cell + ": " + grid[cell]);
+			board[cell] = grid[cell] == 0 ? -1 : grid[cell];
+		}
+
+		long	start	= System.nanoTime();
+		Search	search	= new Search(dim);
+		Branch	root	= new Branch(search, board, null);
+		if(!root.searchAlone())
+			pool.invoke(root);
+
+		int found = search.found.get();
+		SolveResult.Verdict verdict = found == 0 ? SolveResult.Verdict.NONE
+									: found == 1 ? SolveResult.Verdict.UNIQUE
+									: SolveResult.Verdict.MULTIPLE;
+
+		return new SolveResult(verdict, search.first.get(), search.nodes.sum(), search.tasks.sum(), search.steals.sum(),
+							   pool.getParallelism(), System.nanoTime() - start);
+	}
+
+	/**
+	 * What every task of one solve shares: the solutions found so far and the counters.
+	 */
+	private static final class Search
+	{
+		private int							dimension;
+		private Topology					topology;
+		private long						fullMask;
+
+		private AtomicInteger				found	= new AtomicInteger();
+		private AtomicReference<int[]>		first	= new AtomicReference<int[]>();
+		private AtomicBoolean				stop	= new AtomicBoolean();
+
+		private LongAdder					nodes	= new LongAdder();
+		private LongAdder					tasks	= new LongAdder();
+		private LongAdder					steals	= new LongAdder();
+
+		// One counter per worker thread, reused by every task it runs
+		private ThreadLocal<SolutionCounter>	counters;
+
+		private Search(int dim)
+		{
+			dimension	= dim;
+			topology	= Topology.of(dim);
+			fullMask	= CandidateSet.fullMask(dim);
+			counters	= ThreadLocal.withInitial(() -> new SolutionCounter(dim));
+		}
+
+		/**
+		 * Adds the solutions a task found, keeping the first one.
+		 */
+		private void record(int count, int[] solution)
+		{
+			if(first.get() == null)
+				first.compareAndSet(null, solution.clone());
+			if(found.addAndGet(count) >= 2)
+				stop.set(true);
+		}
+	}
+
+	/**
+	 * Searches the subtree below one partial board.
+	 */
+	private static final class Branch extends RecursiveAction
+	{
+		private static final long	serialVersionUID = 1L;
+
+		private Search		search;
+		private int[]		board;
+		private Thread		owner;
+		private boolean		searched;
+
+		private Branch(Search search, int[] board, Thread owner)
+		{
+			this.search	= search;
+			this.board	= board;
+			this.owner	= owner;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(owner != null && owner != Thread.currentThread())
+				search.steals.increment();
+			if(!searchAlone())
+				split();
+		}
+
+		/**
+		 * Searches the subtree up to LEAF_NODES nodes, once.
+		 *
+		 * @return false if the subtree is too large and has to be split
+		 */
+		private boolean searchAlone()
+		{
+			if(searched)
+				return false;
+			searched = true;
+
+			search.tasks.increment();
+			if(search.stop.get())
+				return true;
+
+			SolutionCounter counter = search.counters.get();
+			counter.setCancelled(search.stop);
+			counter.setNodeLimit(LEAF_NODES);
+
+			int count = counter.countSolutions(board, 2);
+			search.nodes.add(counter.getNodes());
+
+			if(search.stop.get())
+				return true;
+			if(counter.isAborted())
+				return false;
+			if(count > 0)
+				search.record(count, counter.getSolution());
+			return true;
+		}
+
+		/**
+		 * Forks one task for every candidate of the empty cell with the fewest candidates.
+		 */
+		private void split()
+		{
+			Topology	topology	= search.topology;
+			int			best		= -1;
+			long		bestMask	= 0L;
+			int			bestSize	= Integer.MAX_VALUE;
+
+			long[] rowUsed	= new long[search.dimension];
+			long[] colUsed	= new long[search.dimension];
+			long[] boxUsed	= new long[search.dimension];
+			for(int cell = 0; cell < board.length; cell++)
+			{
+				if(board[cell] != -1)
+				{
+					long mask = CandidateSet.maskOf(board[cell]);
+					rowUsed[topology.getRow(cell)]	|= mask;
+					colUsed[topology.getCol(cell)]	|= mask;
+					boxUsed[topology.getBox(cell)]	|= mask;
+				}
+			}
+
+			for(int cell = 0; cell < board.length && bestSize > 1; cell++)
+			{
+				if(board[cell] != -1)
+					continue;
+
+				long candidates = search.fullMask & ~(rowUsed[topology.getRow(cell)] | colUsed[topology.getCol(cell)] | boxUsed[topology.getBox(cell)]);
+				if(Long.bitCount(candidates) < bestSize)
+				{
+					best		= cell;
+					bestMask	= candidates;
+					bestSize	= Long.bitCount(candidates);
+				}
+			}
+			if(best == -1)
+				return;
+
+			ArrayList<Branch> children = new ArrayList<Branch>(bestSize);
+			while(bestMask != 0)
+			{
+				long mask	= bestMask & -bestMask;
+				bestMask	&= ~mask;
+
+				int[] child	= board.clone();
+				child[best]	= Long.numberOfTrailingZeros(mask) + 1;
+				children.add(new Branch(search, child, Thread.currentThread()));
+			}
+			invokeAll(children);
+		}
+	}
+}
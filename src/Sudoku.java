@@ -1,3 +1,15 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * @author Joshua Boone
  *
@@ -11,14 +23,73 @@
  */
 public class Sudoku 
 {
+	// How long a new game may take to generate before it is given up
+	private static final long	GENERATION_BUDGET_SECONDS	= 120;
+	
+	// Where the game in progress is saved after every action, unless --save names another file
+	private static final Path	DEFAULT_SAVE_FILE			= Paths.get(System.getProperty("user.home"), ".sudoku.save");
 
 	/**
 	 * Initiates MVC and starts the game loop.
+	 * Run with "batch count dimension file [threads]" to generate puzzles to a file instead.
+	 * Run with "server [port] [pool threads]" to host games over TCP, and with
+	 * "loadtest clients commands [port] [dimension]" to play simulated players against it.
+	 * Run with "solve [file]" to solve boards written in the batch format.
+	 * Run with "--diff" to redraw only the parts of the board that change, on ANSI terminals.
+	 * Run with "--save file" to save the game in progress there instead of ~/.sudoku.save.
 	 * 
 	 * @param args
 	 */
 	public static void main(String[] args) 
 	{	
+		// Headless batch generation
+		if(args.length > 0 && args[0].equalsIgnoreCase("batch"))
+		{
+			try
+			{
+				BatchGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+			}
+			catch(IOException | InterruptedException e)
+			{
+				new View().printErrorScreen(e.getMessage());
+				System.exit(1);
+			}
+			return;
+		}
+		
+		// Solve boards given in the batch format
+		if(args.length > 0 && args[0].equalsIgnoreCase("solve"))
+		{
+			try
+			{
+				Solver.main(Arrays.copyOfRange(args, 1, args.length));
+			}
+			catch(IOException e)
+			{
+				new View().printErrorScreen(e.getMessage());
+				System.exit(1);
+			}
+			return;
+		}
+		
+		// Headless game server and its load test
+		if(args.length > 0 && (args[0].equalsIgnoreCase("server") || args[0].equalsIgnoreCase("loadtest")))
+		{
+			try
+			{
+				if(args[0].equalsIgnoreCase("server"))
+					GameServer.main(Arrays.copyOfRange(args, 1, args.length));
+				else
+					LoadTestClient.main(Arrays.copyOfRange(args, 1, args.length));
+			}
+			catch(IOException | InterruptedException e)
+			{
+				new View().printErrorScreen(e.getMessage());
+				System.exit(1);
+			}
+			return;
+		}
+		
 		String 		userInput;
 		String[]	dimMissHintString	= new String[3];
 		String[]	rowColString		= new String[2];
@@ -28,11 +99,16 @@ public class Sudoku
 		int			hint;
 		int			row;
 		int			col;
+		PlayerActionEvent	action;
 		
+		Path		saveFile			= saveFile(args);
 		Model 		model 				= new Model();
-		View 		view 				= new View();
+		View 		view 				= new View(Arrays.asList(args).contains("--diff"));
 		Controller 	controller 			= new Controller();
 		
+		// Show progress at most 4 times a second while a large puzzle is generated
+		model.setProgressListener(new ProgressReporter(view, 250));
+		
 		// Begin
 		view.printTitle();
 		view.printIntroScreen();
@@ -42,30 +118,84 @@ public class Sudoku
 		while (true)
 		{
 			userInput = controller.getInput();
+			action = new PlayerActionEvent();
+			action.begin();
 			
 			// Start new game
 			if(userInput.equalsIgnoreCase("new"))
 			{
+				// A save that is not the current game's is from an earlier session
+				boolean otherSave = model.gameState == null || model.gameState.getJournal() == null;
+				if(otherSave && Files.exists(saveFile))
+				{
+					view.printOverwriteSaveScreen(saveFile.toString());
+					if(!controller.getInput().equalsIgnoreCase("y"))
+					{
+						view.printTitle();
+						view.printIntroScreen();
+						continue;
+					}
+				}
+				
 				view.printTitle();
 				view.printInstructionScreen();
 				
 				userInput = controller.getInput();
+				action.begin();
 				
 				if(userInput.isEmpty())
-					model.newGame();
+				{
+					dim		= 9;
+					miss	= 1000;
+					hint	= 1000;
+				}
 				else
 				{
 					dimMissHintString 	= userInput.split(" ");
 					dim					= Integer.parseInt(dimMissHintString[0]);
 					miss				= Integer.parseInt(dimMissHintString[1]);
 					hint				= Integer.parseInt(dimMissHintString[2]);
-					
-					model.newGame(dim, miss, hint);
 				}
 				
-				view.printTitle();
-				view.printStatusScreen(selectedElem, model.gameState.getMaxMisses() - model.gameState.getNumOfMisses(), model.gameState.getMaxHints() - model.gameState.getNumOfHints());
-				view.printGameScreen(model.gameState);
+				if(model.gameState != null)
+					closeSave(view, model.gameState, false);
+				
+				if(!awaitNewGame(model, view, controller, dim, miss, hint))
+				{
+					view.printTitle();
+					view.printIntroScreen();
+					continue;
+				}
+				
+				try
+				{
+					GameJournal.start(saveFile, model.gameState);
+				}
+				catch(IOException e)
+				{
+					view.printErrorScreen("The game will not be saved: " + e.getMessage());
+				}
+				
+				printFrame(view, model.gameState, selectedElem, action, "NEW");
+			}
+			// Continue the saved game
+			else if(userInput.equalsIgnoreCase("resume"))
+			{
+				if(model.gameState != null)
+					closeSave(view, model.gameState, false);
+				
+				try
+				{
+					model.resumeGame(saveFile);
+				}
+				catch(IOException e)
+				{
+					view.printErrorScreen("No saved game to resume: " + e.getMessage());
+					view.printIntroScreen();
+					continue;
+				}
+				
+				printFrame(view, model.gameState, selectedElem, action, "RESUME");
 			}
 			// Exit game
 			else if(userInput.equalsIgnoreCase("exit"))
@@ -79,9 +209,14 @@ public class Sudoku
 			{
 				model.gameState.useHint();
 				
-				view.printTitle();
-				view.printStatusScreen(selectedElem, model.gameState.getMaxMisses() - model.gameState.getNumOfMisses(), model.gameState.getMaxHints() - model.gameState.getNumOfHints());
-				view.printGameScreen(model.gameState);
+				printFrame(view, model.gameState, selectedElem, action, "HINT");
+			}
+			// Switch between checking moves against the answer key and against the rules
+			else if(userInput.equalsIgnoreCase("free"))
+			{
+				model.gameState.setFreeEntry(!model.gameState.isFreeEntry());
+				
+				printFrame(view, model.gameState, selectedElem, action, "FREE");
 			}
 			// Select cell
 			else if(userInput.contains(" "))
@@ -92,23 +227,34 @@ public class Sudoku
 				
 				model.gameState.checkInput(row-1, col-1, selectedElem);
 				
-				view.printTitle();
-				view.printStatusScreen(selectedElem, model.gameState.getMaxMisses() - model.gameState.getNumOfMisses(), model.gameState.getMaxHints() - model.gameState.getNumOfHints());
-				view.printGameScreen(model.gameState);
+				printFrame(view, model.gameState, selectedElem, action, "MOVE");
 			}
 			// select value
 			else
 			{
 				selectedElem 	= Integer.parseInt(userInput);
 				
-				view.printTitle();
-				view.printStatusScreen(selectedElem, model.gameState.getMaxMisses() - model.gameState.getNumOfMisses(), model.gameState.getMaxHints() - model.gameState.getNumOfHints());
-				view.printGameScreen(model.gameState);
+				printFrame(view, model.gameState, selectedElem, action, "SELECT");
+			}
+			
+			// Save the action
+			if(model.gameState.getJournal() != null)
+			{
+				try
+				{
+					model.gameState.getJournal().flush();
+				}
+				catch(IOException e)
+				{
+					view.printErrorScreen("The game could not be saved: " + e.getMessage());
+				}
 			}
 			
 			// Check for goal state
 			if(model.gameState.isSolved())
 			{
+				closeSave(view, model.gameState, true);
+				
 				view.printVictoryScreen();
 				
 				userInput = controller.getInput();
@@ -126,6 +272,8 @@ public class Sudoku
 			// Check for failure state
 			if(model.gameState.getMaxMisses() - model.gameState.getNumOfMisses() < 1)
 			{
+				closeSave(view, model.gameState, true);
+				
 				view.printTitle();
 				view.printFailureScreen();
 				
@@ -142,4 +290,115 @@ public class Sudoku
 			}
 		}
 	}
+	
+	/**
+	 * Returns the file named by "--save file", or the default save file.
+	 */
+	private static Path saveFile(String[] args)
+	{
+		int option = Arrays.asList(args).indexOf("--save");
+		if(option >= 0 && option + 1 < args.length)
+			return Paths.get(args[option + 1]);
+		return DEFAULT_SAVE_FILE;
+	}
+	
+	/**
+	 * Draws the frame that follows a player action, and records the action and the
+	 * time spent drawing it when a flight recording is running.
+	 */
+	private static void printFrame(View view, GameState gameState, int selectedElem, PlayerActionEvent action, String name)
+	{
+		long start = System.nanoTime();
+		view.printFrame(gameState, selectedElem);
+		
+		if(action.shouldCommit())
+		{
+			action.action		= name;
+			action.dimension	= gameState.getDimension();
+			action.empty		= gameState.getNumOfEmpty();
+			action.renderNanos	= System.nanoTime() - start;
+			action.commit();
+		}
+	}
+	
+	/**
+	 * Stops saving a game. A finished game's save is deleted, since there is nothing
+	 * left to resume.
+	 */
+	private static void closeSave(View view, GameState gameState, boolean finished)
+	{
+		GameJournal journal = gameState.getJournal();
+		if(journal == null)
+			return;
+		
+		try
+		{
+			if(finished)
+				journal.discard();
+			else
+				journal.close();
+		}
+		catch(IOException e)
+		{
+			view.printErrorScreen(e.getMessage());
+		}
+	}
+	
+	/**
+	 * Starts a new game and waits for it, reading 'cancel' from the user in the meantime.
+	 * Anything else typed while waiting is handed back to the controller for afterwards.
+	 * 
+	 * @return true if the game was created, false if it was cancelled or failed
+	 */
+	private static boolean awaitNewGame(Model model, View view, Controller controller, int dim, int miss, int hint)
+	{
+		CancellationToken				token		= new CancellationToken();
+		Instant							deadline	= Instant.now().plusSeconds(GENERATION_BUDGET_SECONDS);
+		CompletableFuture<GameState>	future		= model.newGameAsync(dim, miss, hint, deadline, token);
+		ArrayList<String>				typedAhead	= new ArrayList<String>();
+		
+		if(!future.isDone())
+			view.printGeneratingScreen(GENERATION_BUDGET_SECONDS);
+		
+		try
+		{
+			while(true)
+			{
+				try
+				{
+					model.gameState = future.get(100, TimeUnit.MILLISECONDS);
+					return true;
+				}
+				catch(TimeoutException e)
+				{
+					if(!controller.hasInput())
+						continue;
+					
+					String userInput = controller.getInput();
+					if(userInput.equalsIgnoreCase("cancel"))
+						token.cancel();
+					else
+						typedAhead.add(userInput);
+				}
+				catch(ExecutionException e)
+				{
+					view.printErrorScreen(e.getCause().getMessage());
+					return false;
+				}
+				catch(InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					token.cancel();
+					return false;
+				}
+			}
+		}
+		finally
+		{
+			for(String userInput : typedAhead)
+			{
+				controller.unread(userInput);
+			}
+		}
+	}
 }
@@ -0,0 +1,151 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Joshua Boone
+ *
+ * The fixed layout of a board of one dimension: which row, column and region each
+ * cell is in, the cells of every unit, and every cell's peers.
+ *
+ * Built once per dimension and shared by every board, search and solver of that size,
+ * so the inner loops read table entries instead of redoing the region arithmetic.
+ * Cells are indexed by row * dimension + col. Units 0..dimension-1 are rows, then
+ * columns, then regions. The returned arrays are shared and must not be modified.
+ *
+ */
+public final class Topology
+{
+	private static final ConcurrentHashMap<Integer, Topology>	CACHE = new ConcurrentHashMap<Integer, Topology>();
+
+	private final int			dimension;
+	private final int			sqrt;
+
+	private final int[]			rowOf;
+	private final int[]			colOf;
+	private final int[]			boxOf;
+	private final int[][]		units;
+	private final int[][]		peers;
+
+	/**
+	 * Constructor
+	 *
+	 * @param dim dimension of the board, must be a perfect square
+	 */
+	private Topology(int dim)
+	{
+		dimension	= dim;
+		sqrt		= (int) Math.sqrt(dim);
+
+		int cells	= dim*dim;
+		rowOf		= new int[cells];
+		colOf		= new int[cells];
+		boxOf		= new int[cells];
+		units		= new int[3*dim][dim];
+		peers		= new int[cells][];
+
+		for(int cell = 0; cell < cells; cell++)
+		{
+			rowOf[cell]	= cell / dim;
+			colOf[cell]	= cell % dim;
+			boxOf[cell]	= (rowOf[cell]/sqrt)*sqrt + colOf[cell]/sqrt;
+		}
+
+		for(int i = 0; i < dim; i++)
+		{
+			for(int j = 0; j < dim; j++)
+			{
+				units[i][j]			= i*dim + j;
+				units[dim + i][j]	= j*dim + i;
+				units[2*dim + i][j]	= ((i/sqrt)*sqrt + j/sqrt)*dim + (i%sqrt)*sqrt + (j%sqrt);
+			}
+		}
+
+		// Row and column peers, then the region peers not already in the row or column
+		int numOfPeers = dim > 1 ? 3*dim - 2*sqrt - 1 : 0;
+		for(int cell = 0; cell < cells; cell++)
+		{
+			int[]	cellPeers	= new int[numOfPeers];
+			int		count		= 0;
+
+			for(int i = 0; i < dim; i++)
+			{
+				if(i != colOf[cell])
+					cellPeers[count++] = rowOf[cell]*dim + i;
+				if(i != rowOf[cell])
+					cellPeers[count++] = i*dim + colOf[cell];
+			}
+			for(int peer : units[2*dim + boxOf[cell]])
+			{
+				if(rowOf[peer] != rowOf[cell] && colOf[peer] != colOf[cell])
+					cellPeers[count++] = peer;
+			}
+
+			peers[cell] = cellPeers;
+		}
+	}
+
+	/**
+	 * Returns the shared topology of a dimension, building it on first use.
+	 *
+	 * @param dim dimension of the board, must be a perfect square
+	 */
+	public static Topology of(int dim)
+	{
+		return CACHE.computeIfAbsent(dim, Topology::new);
+	}
+
+
+	//----------- Getters and Setters -----------\\
+
+	/**
+	 * @return the dimension
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return the sqrt
+	 */
+	public int getSqrt() {
+		return sqrt;
+	}
+
+	/**
+	 * @param cell index of the cell
+	 * @return the row of the cell
+	 */
+	public int getRow(int cell) {
+		return rowOf[cell];
+	}
+
+	/**
+	 * @param cell index of the cell
+	 * @return the column of the cell
+	 */
+	public int getCol(int cell) {
+		return colOf[cell];
+	}
+
+	/**
+	 * @param cell index of the cell
+	 * @return the region of the cell, numbered row-major from the top left
+	 */
+	public int getBox(int cell) {
+		return boxOf[cell];
+	}
+
+	/**
+	 * @return the cells of every row, column and region
+	 */
+	public int[][] getUnits() {
+		return units;
+	}
+
+	/**
+	 * @param cell index of the cell
+	 * @return every other cell that shares a row, column or region with the cell, each once
+	 */
+	public int[] getPeers(int cell) {
+		return peers[cell];
+	}
+}
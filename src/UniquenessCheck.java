@@ -0,0 +1,25 @@
+/**
+ * @author Joshua Boone
+ *
+ * Ways the generator can decide that a puzzle has a unique solution.
+ *
+ */
+public enum UniquenessCheck
+{
+	/**
+	 * Unique only when arc consistency alone pins every empty cell to a single value.
+	 */
+	PROPAGATION,
+
+	/**
+	 * Unique when a backtracking search finds exactly one solution.
+	 * Stops counting as soon as a second solution is found.
+	 */
+	SOLUTION_COUNT,
+
+	/**
+	 * Same as SOLUTION_COUNT, but the search runs on the dancing links exact cover solver.
+	 * Scales better to 16x16 and larger boards.
+	 */
+	EXACT_COVER
+}
@@ -1,12 +1,25 @@
+import java.io.PrintStream;
+import java.io.PrintWriter;
+
 /**
  * @author Joshua Boone
  *
  *
  * This class handles all the output to the user.
  * 
+ * The game screen is built into one reused buffer and written with a single flush.
+ * In diff mode the screen is drawn in full once, and later frames only move the
+ * cursor to the cells and status fields that changed and redraw those.
+ * Diff mode needs an ANSI terminal tall enough to show the whole frame.
+ * 
  */
 public class View 
 {
+	private static final String SELECTED_LABEL = "  Current Selected Value : ";
+	private static final String MISSES_LABEL   = "   Number of Misses left : ";
+	private static final String HINTS_LABEL    = "    Number of Hints left : ";
+	private static final String EMPTY_LABEL    = "    Cells left to fill   : ";
+	
 	private String logo;
 	private String intro;
 	private String instructions;
@@ -14,8 +27,39 @@ public class View
 	private String emptyBoard;
 	private int    selected = 1;
 	
+	private StringBuilder frame;
+	private char[]        chars;
+	private PrintStream   target;
+	private PrintWriter   writer;
+	
+	// What the last full or diff frame left on the screen
+	private boolean       diffMode;
+	private boolean       framed;
+	private Board         lastBoard;
+	private int[]         lastValues;
+	private int           lastMisses;
+	private int           lastHints;
+	private int           lastEmpty;
+	private int           statusLine;
+	private int           boardLine;
+	private int           promptLine;
+	
 	public View() 
 	{
+		this(false);
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param diffMode whether to redraw only what changed between game frames
+	 */
+	public View(boolean diffMode) 
+	{
+		this.diffMode = diffMode;
+		frame         = new StringBuilder(1 << 12);
+		chars         = new char[1 << 12];
+		
 		logo =  "\033[2J\033[33m ____                __          __                \n" +
 				"/\\  _`\\             /\\ \\        /\\ \\               \n" +
 				"\\ \\,\\L\\_\\  __  __   \\_\\ \\    ___\\ \\ \\/'\\   __  __  \n" +
@@ -38,8 +82,11 @@ public class View
 				"                                                                         \n" 	+ 
 				"You may only guess incorrectly a certain amount of times before failure. \n" 	+ 
 				"                                                                         \n" 	+ 
+				"Enter 'free' to accept any entry the rules allow, instead of only the    \n" 	+ 
+				"answer. Enter 'free' again to switch back.                               \n" 	+ 
+				"                                                                         \n" 	+ 
 				"Once all the cells have been filled correctly, you win!                  \n"	+
-				"('NEW' to start new game)                                                \n";
+				"('NEW' to start new game, 'RESUME' to continue the saved game)           \n";
 		
 		instructions =	"Enter the domain of your game (a perfect square),                        \n"	+
 						"the number of misses allowed,                                            \n"	+
@@ -79,6 +126,7 @@ public class View
 	public void printTitle()
 	{
 		//Game logo
+		framed = false;
 		System.out.println(logo);
 	}
 	
@@ -87,6 +135,7 @@ public class View
 	 */
 	public void printIntroScreen()
 	{
+		framed = false;
 		System.out.println(intro);
 	}
 	
@@ -95,9 +144,45 @@ public class View
 	 */
 	public void printInstructionScreen()
 	{
+		framed = false;
 		System.out.println(instructions);
 	}
 	
+	/**
+	 * Displays the title, status and board as one frame.
+	 * In diff mode, once a full frame of this board is on the screen, only the cells
+	 * and status fields that changed since the last frame are redrawn.
+	 * 
+	 * @param gameState the gameState to print
+	 * @param value of the currently selected element
+	 */
+	public void printFrame(GameState gameState, int value)
+	{
+		Board board  = gameState.getBoard();
+		int   misses = gameState.getMaxMisses() - gameState.getNumOfMisses();
+		int   hints  = gameState.getMaxHints() - gameState.getNumOfHints();
+		int   empty  = gameState.getNumOfEmpty();
+		
+		frame.setLength(0);
+		if(diffMode && framed && board == lastBoard)
+			appendChanges(board, value, misses, hints, empty);
+		else
+		{
+			if(diffMode)
+				frame.append("\033[H");
+			frame.append(logo).append('\n');
+			statusLine = countLines();
+			appendStatusScreen(value, misses, hints, empty);
+			boardLine  = countLines();
+			appendGameScreen(board);
+			promptLine = countLines();
+			
+			remember(board, value, misses, hints, empty);
+			framed = diffMode;
+		}
+		flushFrame();
+	}
+	
 	/**
 	 * Displays the sudoku board to the screen.
 	 * 
@@ -105,168 +190,293 @@ public class View
 	 */
 	public void printGameScreen(GameState gameState)
 	{
-		String topKey  = "";
-		String topRow  = "";
-		String thisRow = "";
-		String nextRow = "";
+		printGameScreen(gameState.getBoard());
+	}
+	
+	/**
+	 * Displays a board to the screen.
+	 * 
+	 * @param board the board to print
+	 */
+	public void printGameScreen(Board board)
+	{
+		frame.setLength(0);
+		appendGameScreen(board);
+		framed = false;
+		flushFrame();
+	}
+	
+	/**
+	 * Displays the current selscted value, number of misses left, number of hints left,
+	 * and number of cells left to fill.
+	 * 
+	 * @param value of the currently selected element
+	 * @param misses number of misses left
+	 * @param hints number of hints left
+	 * @param empty number of cells left to fill
+	 */
+	public void printStatusScreen(int value, int misses, int hints, int empty)
+	{
+		frame.setLength(0);
+		appendStatusScreen(value, misses, hints, empty);
+		framed = false;
+		flushFrame();
+	}
+	
+	/**
+	 * Builds the board into the frame, one line per board row and one per row border.
+	 * 
+	 * @param board the board to build
+	 */
+	private void appendGameScreen(Board board)
+	{
+		int dim  = board.getDimension();
+		int sqrt = board.getSqrt();
 		
 		// Special case for single value domain.
-		if(gameState.getDimension() == 1)
+		if(dim == 1)
 		{
-			topKey  = "    1 ";
-			topRow  = "   ___";
-			thisRow = "1 | " + gameState.getGameState()[0][0].getElem() + " |";
-			nextRow = "  |___|";
-		
-			System.out.println(topKey);
-			System.out.println(topRow);
-			System.out.println(thisRow);
-			System.out.println(nextRow);
-			
+			frame.append("    1 \n");
+			frame.append("   ___\n");
+			frame.append("1 | ").append(board.getValue(0, 0)).append(" |\n");
+			frame.append("  |___|\n");
 			return;
 		}
 		
-		// Iterate through the sudoku cells to build the display strings.
-		for(int row = 0; row < gameState.getDimension(); row++)
+		// Column keys and top border
+		frame.append("    1 ");
+		for(int col = 1; col < dim; col++)
+		{
+			frame.append("  ").append(col+1).append(' ');
+		}
+		frame.append('\n');
+		frame.append("   ___");
+		for(int col = 1; col < dim; col++)
+		{
+			frame.append(col == dim - 1 ? "____ " : "____");
+		}
+		frame.append('\n');
+		
+		for(int row = 0; row < dim; row++)
 		{
-			for(int col = 0; col < gameState.getDimension(); col++)
+			// Insert leftmost key, then each cell value with the region or cell separator before it.
+			frame.append(row+1).append(dim < 10 ? " | " : "| ");
+			for(int col = 0; col < dim; col++)
 			{
-				// Build leftmost column of the board.
-				if(col == 0)
-				{
-					// Build top row
-					if(row == 0)
-					{
-						topKey = "    1 ";
-						topRow = "   ___";
-					}
-					
-					// Insert cell value and leftmost key.
-					if(gameState.getDimension() < 10)
-						thisRow = (row+1) + " | ";
-					else
-						thisRow = (row+1) + "| ";
-					if(gameState.getGameState()[row][col].getElem() != -1)
-					{
-						if(gameState.getGameState()[row][col].getElem() == selected)
-							thisRow += "\033[32m" + selected + "\033[0m";
-						else
-							thisRow += gameState.getGameState()[row][col].getElem();
-						if(gameState.getGameState()[row][col].getElem() < 10)
-							thisRow += " ";
-					}
-					else
-						thisRow += "  ";
-					
-					if((row+1)/gameState.getSqrt()*gameState.getSqrt() == (row+1))
-						nextRow = "  |___";
-					else
-						nextRow = "  |...";
-				}
-				// Build last column in board.
-				else if(col == gameState.getDimension() - 1)
-				{
-					// Build top row
-					if(row == 0)
-					{
-						topKey += "  " + (col+1) + " ";
-						topRow += "____ ";
-					}
-					
-					if(col/gameState.getSqrt()*gameState.getSqrt() == col)
-						thisRow += "| ";
-					else
-						thisRow += ": ";
-					
-					// Insert cell value
-					if(gameState.getGameState()[row][col].getElem() != -1)
-					{
-						if(gameState.getGameState()[row][col].getElem() == selected)
-							thisRow += "\033[32m" + selected + "\033[0m";
-						else
-							thisRow += gameState.getGameState()[row][col].getElem();
-						if(gameState.getGameState()[row][col].getElem() < 10)
-							thisRow += " |";
-						else
-							thisRow += "|";
-					}
-					else
-						thisRow += "  |";
-					
-					if((row+1)/gameState.getSqrt()*gameState.getSqrt() == (row+1))
-						nextRow += ";___|";
-					else
-						nextRow += ":...|";
-				}
-				// Build middle columns.
-				else
-				{
-					// Build top row
-					if(row == 0)
-					{
-						topKey += "  " + (col+1) + " ";
-						topRow += "____";
-					}
-					
-					if(col/gameState.getSqrt()*gameState.getSqrt() == col)
-						thisRow += "| ";
-					else
-						thisRow += ": ";
-					
-					// Insert cell value
-					if(gameState.getGameState()[row][col].getElem() != -1)
-					{
-						if(gameState.getGameState()[row][col].getElem() == selected)
-							thisRow += "\033[32m" + selected + "\033[0m";
-						else
-							thisRow += gameState.getGameState()[row][col].getElem();
-						if(gameState.getGameState()[row][col].getElem() < 10)
-							thisRow += " ";
-					}
-					else
-						thisRow += "  ";
-					
-					if((row+1)/gameState.getSqrt()*gameState.getSqrt() == (row+1))
-					{
-						if(col/gameState.getSqrt()*gameState.getSqrt() == col)
-							nextRow += "|___";
-						else
-							nextRow += ";___";
-					}
-					else
-						if(col/gameState.getSqrt()*gameState.getSqrt() == col)
-							nextRow += "|...";
-						else
-							nextRow += ":...";
-				}
+				if(col > 0)
+					frame.append(col % sqrt == 0 ? "| " : ": ");
+				appendCell(board.getValue(row, col));
 			}
-			// Display the built rows
-			if(row == 0)
+			frame.append("|\n");
+			
+			// Row border, solid below the last row of a region.
+			boolean regionEnd = (row+1) % sqrt == 0;
+			frame.append(regionEnd ? "  |___" : "  |...");
+			for(int col = 1; col < dim - 1; col++)
 			{
-				System.out.println(topKey);
-				System.out.println(topRow);
+				if(col % sqrt == 0)
+					frame.append(regionEnd ? "|___" : "|...");
+				else
+					frame.append(regionEnd ? ";___" : ":...");
 			}
-			System.out.println(thisRow);
-			System.out.println(nextRow);
+			frame.append(regionEnd ? ";___|\n" : ":...|\n");
 		}
-		System.out.println(moveInstruction);
+		frame.append(moveInstruction).append('\n');
 	}
 	
 	/**
-	 * Displays the current selscted value, number of misses left, and number of hints left.
+	 * Builds a cell value into the frame, two characters wide, highlighting the selected value.
+	 * 
+	 * @param elem value of the cell, -1 if empty
+	 */
+	private void appendCell(int elem)
+	{
+		if(elem == -1)
+		{
+			frame.append("  ");
+			return;
+		}
+		
+		if(elem == selected)
+			frame.append("\033[32m").append(elem).append("\033[0m");
+		else
+			frame.append(elem);
+		if(elem < 10)
+			frame.append(' ');
+	}
+	
+	/**
+	 * Builds the status screen into the frame.
 	 * 
 	 * @param value of the currently selected element
 	 * @param misses number of misses left
 	 * @param hints number of hints left
+	 * @param empty number of cells left to fill
 	 */
-	public void printStatusScreen(int value, int misses, int hints)
+	private void appendStatusScreen(int value, int misses, int hints, int empty)
 	{
 		selected = value;
-		System.out.println(	" ------------------------------------------------- \n"	+
-							"  Current Selected Value : \033[32m" + value  + "\033[0m          \n"	+
-							"   Number of Misses left : " + misses + "          \n"	+
-							"    Number of Hints left : " + hints  + "          \n"	+
-							" ------------------------------------------------- \n");
+		frame.append(" ------------------------------------------------- \n");
+		frame.append(SELECTED_LABEL).append("\033[32m").append(value).append("\033[0m          \n");
+		frame.append(MISSES_LABEL).append(misses).append("          \n");
+		frame.append(HINTS_LABEL).append(hints).append("          \n");
+		frame.append(EMPTY_LABEL).append(empty).append("          \n");
+		frame.append(" ------------------------------------------------- \n");
+		frame.append('\n');
+	}
+	
+	/**
+	 * Builds cursor-addressed updates for the status fields and cells that changed since
+	 * the last frame, then moves the cursor back to the prompt and clears the old input.
+	 */
+	private void appendChanges(Board board, int value, int misses, int hints, int empty)
+	{
+		int dim = board.getDimension();
+		
+		if(value != selected)
+		{
+			moveTo(statusLine + 1, SELECTED_LABEL.length());
+			frame.append("\033[32m").append(value).append("\033[0m          ");
+		}
+		if(misses != lastMisses)
+		{
+			moveTo(statusLine + 2, MISSES_LABEL.length());
+			frame.append(misses).append("          ");
+		}
+		if(hints != lastHints)
+		{
+			moveTo(statusLine + 3, HINTS_LABEL.length());
+			frame.append(hints).append("          ");
+		}
+		if(empty != lastEmpty)
+		{
+			moveTo(statusLine + 4, EMPTY_LABEL.length());
+			frame.append(empty).append("          ");
+		}
+		
+		int lastSelected = selected;
+		selected = value;
+		for(int cell = 0; cell < board.getSize(); cell++)
+		{
+			int elem = board.getValue(cell);
+			if(elem == lastValues[cell] && (elem == -1 || (elem == value) == (elem == lastSelected)))
+				continue;
+			
+			int row = cell / dim;
+			int col = cell % dim;
+			int key = dim < 10 ? 4 : String.valueOf(row+1).length() + 2;
+			moveTo(boardLine + 2 + 2*row, key + 4*col);
+			appendCell(elem);
+		}
+		
+		moveTo(promptLine, 0);
+		frame.append("\033[J");
+		remember(board, value, misses, hints, empty);
+	}
+	
+	/**
+	 * Builds an ANSI cursor move to a zero based line and column of the frame.
+	 */
+	private void moveTo(int line, int col)
+	{
+		frame.append("\033[").append(line + 1).append(';').append(col + 1).append('H');
+	}
+	
+	/**
+	 * Keeps what the last frame showed, to compare the next frame against.
+	 */
+	private void remember(Board board, int value, int misses, int hints, int empty)
+	{
+		if(lastValues == null || lastValues.length != board.getSize())
+			lastValues = new int[board.getSize()];
+		for(int cell = 0; cell < board.getSize(); cell++)
+		{
+			lastValues[cell] = board.getValue(cell);
+		}
+		
+		lastBoard  = board;
+		selected   = value;
+		lastMisses = misses;
+		lastHints  = hints;
+		lastEmpty  = empty;
+	}
+	
+	/**
+	 * Counts the lines built into the frame so far.
+	 */
+	private int countLines()
+	{
+		int lines = 0;
+		for(int i = 0; i < frame.length(); i++)
+		{
+			if(frame.charAt(i) == '\n')
+				lines++;
+		}
+		return lines;
+	}
+	
+	/**
+	 * Writes the whole frame to standard output in a single write and flush.
+	 */
+	private void flushFrame()
+	{
+		// Follow System.out if it has been redirected
+		if(System.out != target)
+		{
+			target = System.out;
+			writer = new PrintWriter(target);
+		}
+		if(chars.length < frame.length())
+			chars = new char[Math.max(frame.length(), 2*chars.length)];
+		
+		frame.getChars(0, frame.length(), chars, 0);
+		writer.write(chars, 0, frame.length());
+		writer.flush();
+	}
+	
+	/**
+	 * Overwrites the current line with generation progress.
+	 * 
+	 * @param backtracks backtracks per second since the last report
+	 * @param depth number of givens currently on the board
+	 * @param placed number of givens placed so far, including ones taken back
+	 */
+	public void printProgress(long backtracks, int depth, long placed)
+	{
+		framed = false;
+		System.out.print("\rGenerating...  backtracks/sec: " + backtracks + "  depth: " + depth + "  givens placed: " + placed + "          ");
+		System.out.flush();
+	}
+	
+	/**
+	 * Tells the user how to stop a generation that is taking too long.
+	 * 
+	 * @param seconds time budget of the generation
+	 */
+	public void printGeneratingScreen(long seconds)
+	{
+		framed = false;
+		System.out.println("Generating a new puzzle, giving up after " + seconds + " seconds. Enter 'cancel' to stop.");
+	}
+	
+	/**
+	 * Ends the progress line.
+	 */
+	public void printProgressDone()
+	{
+		System.out.println();
+	}
+	
+	/**
+	 * Warns that starting a new game replaces a saved game that has not been resumed.
+	 * 
+	 * @param file the saved game
+	 */
+	public void printOverwriteSaveScreen(String file)
+	{
+		framed = false;
+		System.out.println("A saved game is waiting in " + file + ". A new game will replace it. " +
+						   "Start a new game anyway? [y|n]");
 	}
 	
 	/**
@@ -274,6 +484,7 @@ public class View
 	 */
 	public void printVictoryScreen()
 	{
+		framed = false;
 		System.out.println("Congratulations!" +
 						   "Keep playing? [y|n]");
 	}
@@ -283,6 +494,7 @@ public class View
 	 */
 	public void printFailureScreen()
 	{
+		framed = false;
 		System.out.println("Better luck next time!" +
 							"Keep playing? [y|n]");
 	}
@@ -292,6 +504,7 @@ public class View
 	 */
 	public void printExitScreen()
 	{
+		framed = false;
 		System.out.println("Goodbye!");
 	}
 	
@@ -302,6 +515,7 @@ public class View
 	 */
 	public void printErrorScreen(String error)
 	{
+		 framed = false;
 		 System.out.println("The program has encountered an error: " + error);
 	}
 }